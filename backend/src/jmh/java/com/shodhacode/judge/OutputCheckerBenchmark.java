@@ -0,0 +1,79 @@
+package com.shodhacode.judge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading program output on the judge path: the streaming comparison against the expected output
+ * and draining a large stderr down to its excerpt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputCheckerBenchmark {
+
+    private static final long OUTPUT_LIMIT_BYTES = 1L << 30;
+
+    @Param({"10000", "1000000"})
+    int lines;
+
+    private String expected;
+    private byte[] matchingOutput;
+    private byte[] lastLineDiffers;
+    private byte[] trailingWhitespace;
+
+    @Setup
+    public void setUp() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            output.append(i).append(' ').append((long) i * i).append('\n');
+        }
+        expected = output.toString();
+        matchingOutput = expected.getBytes(StandardCharsets.UTF_8);
+        lastLineDiffers = (expected + "extra\n").getBytes(StandardCharsets.UTF_8);
+        trailingWhitespace = expected.replace("\n", "  \n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OutputChecker.Verdict matchingOutput() throws IOException {
+        return check(matchingOutput);
+    }
+
+    @Benchmark
+    public OutputChecker.Verdict lastLineDiffers() throws IOException {
+        return check(lastLineDiffers);
+    }
+
+    @Benchmark
+    public OutputChecker.Verdict trailingWhitespace() throws IOException {
+        return check(trailingWhitespace);
+    }
+
+    @Benchmark
+    public String errorExcerpt() throws IOException {
+        return ErrorExcerpt.read(new ByteArrayInputStream(matchingOutput));
+    }
+
+    private OutputChecker.Verdict check(byte[] output) throws IOException {
+        OutputChecker checker = new OutputChecker(new StringReader(expected), OUTPUT_LIMIT_BYTES);
+        return checker.check(new ByteArrayInputStream(output));
+    }
+}
@@ -0,0 +1,101 @@
+package com.shodhacode.leaderboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboard aggregation for contests of 10k to 1M accepted submissions: building the standings
+ * from scratch, folding in one more accept, and the reads served to clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ContestStandingsBenchmark {
+
+    private static final int PROBLEMS = 10;
+    private static final int SUBMISSIONS_PER_USER = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    int submissions;
+
+    private String[] userNames;
+    private int[] users;
+    private long[] problemIds;
+    private LocalDateTime[] submittedAt;
+    private long[] runTimes;
+
+    private ContestStandings standings;
+    private LocalDateTime nextEarlier;
+    private int nextUser;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        userNames = new String[Math.max(1, submissions / SUBMISSIONS_PER_USER)];
+        for (int i = 0; i < userNames.length; i++) {
+            userNames[i] = "user" + i;
+        }
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        users = new int[submissions];
+        problemIds = new long[submissions];
+        submittedAt = new LocalDateTime[submissions];
+        runTimes = new long[submissions];
+        for (int i = 0; i < submissions; i++) {
+            users[i] = random.nextInt(userNames.length);
+            problemIds[i] = 1 + random.nextInt(PROBLEMS);
+            submittedAt[i] = start.plusNanos(i * 10_000_000L);
+            runTimes[i] = random.nextInt(2000);
+        }
+        standings = build();
+        nextEarlier = start;
+    }
+
+    @Benchmark
+    public ContestStandings buildFromAccepts() {
+        return build();
+    }
+
+    @Benchmark
+    public boolean recordAccept() {
+        // An accept earlier than any seen before always changes the user's solve
+        String userName = userNames[nextUser++ % userNames.length];
+        nextEarlier = nextEarlier.minusNanos(1000);
+        return standings.recordAccept(userName, 1L, nextEarlier, 1000L);
+    }
+
+    @Benchmark
+    public ContestStandings.Snapshot topPage() {
+        return standings.page(0, 50);
+    }
+
+    @Benchmark
+    public Optional<ContestStandings.RankedStanding> findUser() {
+        return standings.find(userNames[nextUser++ % userNames.length]);
+    }
+
+    private ContestStandings build() {
+        ContestStandings built = new ContestStandings();
+        for (int i = 0; i < submissions; i++) {
+            built.recordAccept(userNames[users[i]], problemIds[i], submittedAt[i], runTimes[i]);
+        }
+        return built;
+    }
+}
@@ -0,0 +1,95 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.dto.ContestDTO;
+import com.shodhacode.dto.SubmissionDTO;
+import com.shodhacode.model.Contest;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-side cost of the submission and contest reads: entity to DTO conversion for contests,
+ * the pending-update overlay on the submission projection. The repositories are stubs that hand
+ * back prebuilt results, so only the service code is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoConversionBenchmark {
+
+    @Param({"5", "50"})
+    int problems;
+
+    private SubmissionService submissionService;
+    private ContestService contestService;
+
+    @Setup
+    public void setUp() {
+        Contest contest = new Contest();
+        contest.setId(1L);
+        contest.setTitle("Benchmark Contest");
+        contest.setDescription("Contest used by the DTO conversion benchmark");
+        contest.setStartTime(LocalDateTime.now());
+        contest.setEndTime(LocalDateTime.now().plusHours(3));
+        for (long i = 1; i <= problems; i++) {
+            Problem problem = new Problem();
+            problem.setId(i);
+            problem.setTitle("Problem " + i);
+            problem.setStatement("Read two integers and print their sum. ".repeat(20));
+            problem.setTimeLimitMillis(1000L);
+            problem.setMemoryLimitMb(256);
+            problem.setContest(contest);
+            contest.getProblems().add(problem);
+        }
+
+        SubmissionDTO submission = new SubmissionDTO(1L, "alice", 1L, "python", SubmissionStatus.ACCEPTED,
+                "All test cases passed", LocalDateTime.now(), LocalDateTime.now(), 12L, 8192L);
+
+        submissionService = new SubmissionService(answering(SubmissionRepository.class, "findDtoById", submission),
+                null, null, null, null, new SubmissionWriter(null, null, null, null), new JudgeProperties());
+        contestService = new ContestService(answering(ContestRepository.class, "findById", contest), new JudgeProperties());
+    }
+
+    @Benchmark
+    public SubmissionDTO getSubmission() {
+        return submissionService.getSubmission(1L);
+    }
+
+    @Benchmark
+    public ContestDTO getContest() {
+        return contestService.getContest(1L);
+    }
+
+    // A repository whose finder of the given name always returns the given result
+    private static <R> R answering(Class<R> repositoryType, String finder, Object result) {
+        Optional<Object> found = Optional.of(result);
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(finder)) {
+                        return found;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
@@ -0,0 +1,76 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handing submissions from the request threads to the judge dispatcher through the scheduler,
+ * with several producers against one consumer as in production.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubmissionQueueBenchmark {
+
+    @Param({"1", "1000"})
+    int users;
+
+    private String[] userNames;
+    private SubmissionScheduler scheduler;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        userNames = new String[users];
+        for (int i = 0; i < users; i++) {
+            userNames[i] = "user" + i;
+        }
+        scheduler = new SubmissionScheduler(new JudgeProperties());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        while (scheduler.poll() != null) {
+            // drain for the next iteration
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        long next;
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(3)
+    public void enqueue(Producer producer) {
+        long submissionId = producer.next++;
+        scheduler.enqueue(submissionId, userNames[(int) (submissionId % users)], SubmissionScheduler.Priority.LIVE_CONTEST);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public Long dequeue() {
+        // The dispatcher blocks in take(), a poll keeps the iteration from hanging at its end
+        return scheduler.poll();
+    }
+}
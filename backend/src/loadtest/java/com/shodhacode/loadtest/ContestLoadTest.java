@@ -0,0 +1,407 @@
+package com.shodhacode.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.ShodhACodeApplication;
+import com.shodhacode.model.Contest;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.TestCase;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.storage.TestDataStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test against an in-process server. It creates a contest, has every contestant
+ * submit through {@code POST /api/submissions} and wait for each verdict by polling or streaming,
+ * while separate clients keep polling the leaderboard. Reports throughput and latency percentiles
+ * for intake, time to verdict and leaderboard reads.
+ *
+ * <p>Run with {@code mvn -Ploadtest verify -Dloadtest.args="--contestants=500"}; see
+ * {@link LoadTestOptions} for the options.
+ */
+@Slf4j
+public final class ContestLoadTest {
+
+    private static final Set<String> IN_PROGRESS = Set.of("PENDING", "RUNNING");
+    private static final String ACCEPTED = "ACCEPTED";
+    private static final String WRONG_ANSWER = "WRONG_ANSWER";
+    private static final String COMPILATION_ERROR = "COMPILATION_ERROR";
+    private static final int PROBLEMS = 3;
+
+    private final LoadTestOptions options;
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LatencyStats intake = new LatencyStats("intake");
+    private final LatencyStats timeToVerdict = new LatencyStats("time to verdict");
+    private final LatencyStats leaderboardReads = new LatencyStats("leaderboard read");
+    private final Map<String, LongAdder> verdicts = new ConcurrentSkipListMap<>();
+    private final LongAdder unexpectedVerdicts = new LongAdder();
+    private final LongAdder leaderboardNotModified = new LongAdder();
+    private final LongAdder rejectedSubmissions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Makes every submission's code unique so none is answered from the verdict cache
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean contestRunning = new AtomicBoolean(true);
+
+    private Long contestId;
+    private List<Long> problemIds;
+
+    private ContestLoadTest(LoadTestOptions options, ConfigurableApplicationContext context) {
+        this.options = options;
+        this.context = context;
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int exitCode;
+        try (ConfigurableApplicationContext context = start(options)) {
+            exitCode = new ContestLoadTest(options, context).run();
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        // Devtools is on the test classpath; its restart would run the whole load test twice
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Passed as arguments so they win over application.yml; the caller's own arguments come last
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.com.shodhacode=INFO",
+                "--logging.level.org.springframework.web=WARN"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ShodhACodeApplication.class);
+        if (options.isFakeJudge()) {
+            // Nothing is executed for real, so there is no point warming up Java runners
+            builder.profiles(FakeJudgeConfiguration.PROFILE);
+            args.add("--judge.java-runners.enabled=false");
+        }
+        args.addAll(options.getApplicationArgs());
+        return builder.run(args.toArray(String[]::new));
+    }
+
+    private int run() throws InterruptedException, IOException {
+        createContest();
+        log.info("Load test contest {} created, {} contestants will submit {} times each",
+                contestId, options.getContestants(), options.getSubmissionsPerContestant());
+
+        long startTime = System.nanoTime();
+        ExecutorService readers = Executors.newFixedThreadPool(Math.max(1, options.getLeaderboardReaders()));
+        for (int i = 0; i < options.getLeaderboardReaders(); i++) {
+            readers.execute(this::readLeaderboard);
+        }
+
+        ExecutorService contestants = Executors.newFixedThreadPool(options.getContestants());
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < options.getContestants(); i++) {
+            int contestant = i;
+            runs.add(contestants.submit(() -> compete(contestant)));
+        }
+        for (Future<?> run : runs) {
+            try {
+                run.get();
+            } catch (ExecutionException e) {
+                errors.increment();
+                log.warn("Contestant failed", e.getCause());
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        contestRunning.set(false);
+        contestants.shutdown();
+        readers.shutdown();
+        readers.awaitTermination(1, TimeUnit.MINUTES);
+
+        printReport(elapsedSeconds);
+        if (options.getReport() != null) {
+            Files.createDirectories(options.getReport().toAbsolutePath().getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.getReport().toFile(), report(elapsedSeconds));
+            log.info("Load test report written to {}", options.getReport());
+        }
+        return errors.sum() == 0 && unexpectedVerdicts.sum() == 0 ? 0 : 1;
+    }
+
+    private void createContest() throws IOException {
+        ContestRepository contestRepository = context.getBean(ContestRepository.class);
+        ProblemRepository problemRepository = context.getBean(ProblemRepository.class);
+
+        Contest contest = new Contest();
+        contest.setTitle("Load Test Contest");
+        contest.setDescription("Generated by the load test");
+        contest.setStartTime(LocalDateTime.now().minusMinutes(5));
+        contest.setEndTime(LocalDateTime.now().plusHours(3));
+        Contest savedContest = contestRepository.save(contest);
+
+        problemIds = new ArrayList<>();
+        for (int i = 1; i <= PROBLEMS; i++) {
+            Problem problem = new Problem();
+            problem.setTitle("Sum " + i);
+            problem.setStatement("Given two integers a and b, output their sum.");
+            problem.setContest(savedContest);
+            problem.setTimeLimitMillis(1000L);
+            problem.setMemoryLimitMb(256);
+            problem.setTestCases(List.of(
+                testCase("2 3", "5"),
+                testCase(i + " " + i, String.valueOf(2 * i)),
+                testCase("-5 3", "-2")
+            ));
+            Problem savedProblem = problemRepository.save(problem);
+            savedContest.getProblems().add(savedProblem);
+            problemIds.add(savedProblem.getId());
+        }
+        contestRepository.save(savedContest);
+        contestId = savedContest.getId();
+    }
+
+    private TestCase testCase(String input, String expectedOutput) throws IOException {
+        TestDataStore testDataStore = context.getBean(TestDataStore.class);
+        TestDataStore.StoredData in = testDataStore.put(input);
+        TestDataStore.StoredData out = testDataStore.put(expectedOutput);
+        return new TestCase(in.getHash(), in.getSize(), out.getHash(), out.getSize());
+    }
+
+    private void compete(int contestant) {
+        String userName = "contestant" + contestant;
+        SplittableRandom random = new SplittableRandom(contestant);
+        for (int i = 0; i < options.getSubmissionsPerContestant(); i++) {
+            String expected = pickVerdict(random);
+            long problemId = problemIds.get(i % problemIds.size());
+            try {
+                long submitStart = System.nanoTime();
+                long submissionId = submit(userName, problemId, code(expected));
+
+                String verdict = options.getVerdicts() == LoadTestOptions.VerdictMode.STREAM
+                        ? streamVerdict(submissionId)
+                        : pollVerdict(submissionId);
+                timeToVerdict.record(System.nanoTime() - submitStart);
+                verdicts.computeIfAbsent(verdict, key -> new LongAdder()).increment();
+                if (!verdict.equals(expected)) {
+                    unexpectedVerdicts.increment();
+                    log.warn("Submission {} expected {} but got {}", submissionId, expected, verdict);
+                }
+
+                if (options.getThinkMillis() > 0) {
+                    Thread.sleep(options.getThinkMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                errors.increment();
+                log.warn("Submission by {} failed: {}", userName, e.getMessage());
+            }
+        }
+    }
+
+    private String pickVerdict(SplittableRandom random) {
+        double roll = random.nextDouble();
+        if (roll >= options.getFailureRatio()) {
+            return ACCEPTED;
+        }
+        return roll < options.getFailureRatio() / 2 ? WRONG_ANSWER : COMPILATION_ERROR;
+    }
+
+    // Python sources that really produce the expected verdict, with the markers the fake judge reads
+    private String code(String expected) {
+        long n = sequence.incrementAndGet();
+        return switch (expected) {
+            case WRONG_ANSWER -> "print(0)\n# " + FakeJudgeConfiguration.WRONG_ANSWER_MARKER + " " + n + "\n";
+            case COMPILATION_ERROR -> "print(\n# " + FakeJudgeConfiguration.COMPILATION_ERROR_MARKER + " " + n + "\n";
+            default -> "print(sum(map(int, input().split())))\n# submission " + n + "\n";
+        };
+    }
+
+    // Records the intake latency of the accepted attempt; rejected attempts wait out their Retry-After
+    private long submit(String userName, long problemId, String code) throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("contestId", contestId);
+        body.put("problemId", problemId);
+        body.put("userName", userName);
+        body.put("language", "python");
+        body.put("code", code);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/submissions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        while (true) {
+            long attemptStart = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 429) {
+                rejectedSubmissions.increment();
+                long retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+                continue;
+            }
+            intake.record(System.nanoTime() - attemptStart);
+            return submissionId(response);
+        }
+    }
+
+    private long submissionId(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Submission rejected with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("submissionId").asLong();
+    }
+
+    private String pollVerdict(long submissionId) throws IOException, InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.getVerdictTimeoutSeconds());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/submissions/" + submissionId)).build();
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Status read failed with HTTP " + response.statusCode());
+            }
+            String status = objectMapper.readTree(response.body()).get("status").asText();
+            if (!IN_PROGRESS.contains(status)) {
+                return status;
+            }
+            Thread.sleep(options.getPollMillis());
+        }
+        throw new TimeoutException("No verdict for submission " + submissionId);
+    }
+
+    private String streamVerdict(long submissionId) throws IOException, InterruptedException, TimeoutException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/submissions/" + submissionId + "/events"))
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofSeconds(options.getVerdictTimeoutSeconds()))
+                .build();
+        HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() == 200) {
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    JsonNode event = objectMapper.readTree(line.substring("data:".length()));
+                    String status = event.get("status").asText();
+                    if (!IN_PROGRESS.contains(status)) {
+                        return status;
+                    }
+                }
+            }
+        }
+        // The stream was refused or ended early; fall back to polling like the frontend does
+        return pollVerdict(submissionId);
+    }
+
+    private void readLeaderboard() {
+        String eTag = null;
+        while (contestRunning.get()) {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/contests/" + contestId + "/leaderboard"));
+                if (eTag != null) {
+                    request.header("If-None-Match", eTag);
+                }
+                long readStart = System.nanoTime();
+                HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                leaderboardReads.record(System.nanoTime() - readStart);
+                if (response.statusCode() == 200) {
+                    eTag = response.headers().firstValue("ETag").orElse(null);
+                } else if (response.statusCode() == 304) {
+                    leaderboardNotModified.increment();
+                } else {
+                    errors.increment();
+                    log.warn("Leaderboard read failed with HTTP {}", response.statusCode());
+                }
+                Thread.sleep(options.getLeaderboardPollMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                errors.increment();
+                log.warn("Leaderboard read failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void printReport(double elapsedSeconds) {
+        System.out.println();
+        System.out.printf("%d submissions from %d contestants in %.1f s, verdicts by %s, %s judge%n",
+                options.totalSubmissions(), options.getContestants(), elapsedSeconds,
+                options.getVerdicts().name().toLowerCase(), options.isFakeJudge() ? "fake" : "real");
+        System.out.println(LatencyStats.header());
+        for (LatencyStats stats : List.of(intake, timeToVerdict, leaderboardReads)) {
+            System.out.println(stats.format(elapsedSeconds));
+        }
+        System.out.printf("Submissions rejected with 429: %d%n", rejectedSubmissions.sum());
+        System.out.printf("Leaderboard reads answered 304: %d%n", leaderboardNotModified.sum());
+        System.out.printf("Verdicts: %s%n", verdictCounts());
+        System.out.printf("Errors: %d, unexpected verdicts: %d%n", errors.sum(), unexpectedVerdicts.sum());
+        System.out.println();
+    }
+
+    private Map<String, Object> report(double elapsedSeconds) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("contestants", options.getContestants());
+        settings.put("submissionsPerContestant", options.getSubmissionsPerContestant());
+        settings.put("leaderboardReaders", options.getLeaderboardReaders());
+        settings.put("verdicts", options.getVerdicts().name().toLowerCase());
+        settings.put("fakeJudge", options.isFakeJudge());
+        settings.put("applicationArgs", options.getApplicationArgs());
+
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        for (LatencyStats stats : List.of(intake, timeToVerdict, leaderboardReads)) {
+            latencies.put(stats.getName(), stats.toReport(elapsedSeconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("latencies", latencies);
+        report.put("rejectedSubmissions", rejectedSubmissions.sum());
+        report.put("leaderboardNotModified", leaderboardNotModified.sum());
+        report.put("verdicts", verdictCounts());
+        report.put("errors", errors.sum());
+        report.put("unexpectedVerdicts", unexpectedVerdicts.sum());
+        return report;
+    }
+
+    private Map<String, Long> verdictCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        verdicts.forEach((verdict, count) -> counts.put(verdict, count.sum()));
+        return counts;
+    }
+}
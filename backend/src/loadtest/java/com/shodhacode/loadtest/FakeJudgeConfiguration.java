@@ -0,0 +1,67 @@
+package com.shodhacode.loadtest;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.judge.CompileResult;
+import com.shodhacode.judge.JudgeResult;
+import com.shodhacode.judge.Language;
+import com.shodhacode.judge.ProcessSlots;
+import com.shodhacode.judge.ResourceUsage;
+import com.shodhacode.judge.SourceCompiler;
+import com.shodhacode.judge.TestCaseRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Replaces compilation and test execution with deterministic stand-ins, so a load test measures
+ * the judge's orchestration (queueing, lanes, workspaces, persistence, events) rather than the
+ * compilers. The verdict is read from a marker in the source; each step sleeps for a fixed time.
+ */
+@Configuration
+@Profile(FakeJudgeConfiguration.PROFILE)
+public class FakeJudgeConfiguration {
+
+    public static final String PROFILE = "fake-judge";
+    public static final String COMPILATION_ERROR_MARKER = "expect: COMPILATION_ERROR";
+    public static final String WRONG_ANSWER_MARKER = "expect: WRONG_ANSWER";
+
+    @Bean
+    @Primary
+    public SourceCompiler fakeSourceCompiler(JudgeProperties judgeProperties, ProcessSlots processSlots,
+                                             @Value("${loadtest.fake.compile-millis:50}") long compileMillis) {
+        return new SourceCompiler(judgeProperties, processSlots) {
+            @Override
+            public CompileResult compile(Path workDir, Language language) throws IOException, InterruptedException {
+                return processSlots.run(() -> {
+                    Thread.sleep(compileMillis);
+                    return source(workDir, language).contains(COMPILATION_ERROR_MARKER)
+                            ? CompileResult.failure("fake compilation error")
+                            : CompileResult.success();
+                });
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public TestCaseRunner fakeTestCaseRunner(ProcessSlots processSlots,
+                                             @Value("${loadtest.fake.run-millis:10}") long runMillis) {
+        return (workDir, testCase, inputFile, testNumber, language, limits, cancellation) -> processSlots.run(() -> {
+            Thread.sleep(runMillis);
+            ResourceUsage usage = new ResourceUsage(runMillis, runMillis, 1024);
+            return source(workDir, language).contains(WRONG_ANSWER_MARKER)
+                    ? JudgeResult.failed(JudgeResult.Outcome.WRONG_ANSWER, "", usage)
+                    : JudgeResult.passed(usage);
+        });
+    }
+
+    private static String source(Path workDir, Language language) throws IOException {
+        return Files.readString(workDir.resolve(language.getSourceFileName()));
+    }
+}
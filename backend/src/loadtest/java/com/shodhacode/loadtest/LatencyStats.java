@@ -0,0 +1,64 @@
+package com.shodhacode.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one kind of request, recorded from many threads at once.
+ */
+class LatencyStats {
+
+    private static final long MAX_TRACKED_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(MAX_TRACKED_NANOS, 3);
+
+    LatencyStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        histogram.recordValue(Math.min(Math.max(nanos, 0), MAX_TRACKED_NANOS));
+    }
+
+    long count() {
+        return histogram.getTotalCount();
+    }
+
+    String format(double elapsedSeconds) {
+        return String.format("%-22s %8d %10.1f %9.2f %9.2f %9.2f %9.2f", name, count(), count() / elapsedSeconds,
+                millis(50), millis(95), millis(99), millis(100));
+    }
+
+    static String header() {
+        return String.format("%-22s %8s %10s %9s %9s %9s %9s", "", "count", "per sec", "p50 ms", "p95 ms", "p99 ms",
+                "max ms");
+    }
+
+    Map<String, Object> toReport(double elapsedSeconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", count());
+        report.put("throughputPerSecond", count() / elapsedSeconds);
+        report.put("p50Millis", millis(50));
+        report.put("p95Millis", millis(95));
+        report.put("p99Millis", millis(99));
+        report.put("maxMillis", millis(100));
+        return report;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private double millis(double percentile) {
+        if (count() == 0) {
+            return 0;
+        }
+        long nanos = percentile >= 100 ? histogram.getMaxValue() : histogram.getValueAtPercentile(percentile);
+        return nanos / 1_000_000.0;
+    }
+}
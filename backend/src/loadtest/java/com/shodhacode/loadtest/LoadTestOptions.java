@@ -0,0 +1,64 @@
+package com.shodhacode.loadtest;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of the load test. Options it does not know are passed on to the
+ * application, e.g. {@code --judge.workers=8}.
+ */
+@Getter
+class LoadTestOptions {
+
+    enum VerdictMode {
+        POLL,
+        STREAM
+    }
+
+    private int contestants = 200;
+    private int submissionsPerContestant = 10;
+    private int leaderboardReaders = 20;
+    private VerdictMode verdicts = VerdictMode.STREAM;
+    private long pollMillis = 200;
+    private long thinkMillis = 0;
+    private long leaderboardPollMillis = 500;
+    private long verdictTimeoutSeconds = 300;
+    // Share of submissions that are expected to fail, half wrong answers and half compilation errors
+    private double failureRatio = 0.2;
+    private boolean fakeJudge = true;
+    private Path report;
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "contestants" -> options.contestants = Integer.parseInt(value);
+                case "submissions-per-contestant" -> options.submissionsPerContestant = Integer.parseInt(value);
+                case "leaderboard-readers" -> options.leaderboardReaders = Integer.parseInt(value);
+                case "verdicts" -> options.verdicts = VerdictMode.valueOf(value.toUpperCase());
+                case "poll-millis" -> options.pollMillis = Long.parseLong(value);
+                case "think-millis" -> options.thinkMillis = Long.parseLong(value);
+                case "leaderboard-poll-millis" -> options.leaderboardPollMillis = Long.parseLong(value);
+                case "verdict-timeout-seconds" -> options.verdictTimeoutSeconds = Long.parseLong(value);
+                case "failure-ratio" -> options.failureRatio = Double.parseDouble(value);
+                case "fake-judge" -> options.fakeJudge = Boolean.parseBoolean(value);
+                case "report" -> options.report = Path.of(value);
+                default -> options.applicationArgs.add(arg);
+            }
+        }
+        return options;
+    }
+
+    int totalSubmissions() {
+        return contestants * submissionsPerContestant;
+    }
+}
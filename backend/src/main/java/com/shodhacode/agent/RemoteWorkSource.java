@@ -0,0 +1,275 @@
+package com.shodhacode.agent;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.dto.JudgeProblemDTO;
+import com.shodhacode.dto.JudgeTaskDTO;
+import com.shodhacode.dto.VerdictReportDTO;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.model.TestCase;
+import com.shodhacode.service.JudgeTask;
+import com.shodhacode.service.JudgeWorkSource;
+import com.shodhacode.storage.TestDataStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Work for the judges of an agent, claimed from the backend's judge API. Claims are fetched in
+ * batches sized to the free judges, kept alive by a heartbeat while they are judged, and answered
+ * with one verdict each. Problems are fetched once per version, and the test files they refer to
+ * are downloaded into the local {@link TestDataStore} unless it already holds them.
+ */
+@Component
+@Profile("agent")
+@Slf4j
+public class RemoteWorkSource implements JudgeWorkSource {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int VERDICT_ATTEMPTS = 3;
+
+    private final JudgeProperties.AgentProperties settings;
+    private final String agentId;
+    private final RestClient restClient;
+    private final TestDataStore testDataStore;
+
+    // Claimed but not yet judged; only the dispatcher thread touches it
+    private final ArrayDeque<JudgeTaskDTO> claimed = new ArrayDeque<>();
+    private final Map<Long, Problem> problems = new ConcurrentHashMap<>();
+    // Claimed and not yet reported, the claims the heartbeat renews
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("judge-agent-heartbeat-"));
+
+    public RemoteWorkSource(JudgeProperties judgeProperties, TestDataStore testDataStore) {
+        this.settings = judgeProperties.getAgent();
+        this.testDataStore = testDataStore;
+        this.agentId = settings.resolveId();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
+        // Claim requests are held open on the backend for up to the poll wait
+        requestFactory.setReadTimeout((int) settings.getPollWait().plusSeconds(30).toMillis());
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl(settings.getBackendUrl())
+                .requestFactory(requestFactory);
+        if (settings.getToken().isBlank()) {
+            throw new IllegalStateException("judge.agent.token must be set, the backend's judge API is closed without it");
+        }
+        this.restClient = builder
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + settings.getToken())
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        long period = settings.getHeartbeatInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, period, period, TimeUnit.MILLISECONDS);
+        log.info("Judge agent {} takes work from {}", agentId, settings.getBackendUrl());
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+    }
+
+    @Override
+    public JudgeTask take(int batchSize) throws InterruptedException {
+        while (true) {
+            while (claimed.isEmpty()) {
+                claimBatch(batchSize);
+            }
+            JudgeTaskDTO task = claimed.poll();
+            try {
+                return toTask(task);
+            } catch (RestClientException | IOException e) {
+                log.warn("Could not fetch test data for submission {}: {}", task.getSubmissionId(), e.getMessage());
+                releaseClaim(task.getSubmissionId());
+            }
+        }
+    }
+
+    @Override
+    public void started(JudgeTask task) {
+        // The backend announced RUNNING when the submission was claimed
+    }
+
+    @Override
+    public void finished(JudgeTask task, boolean judged) {
+        Submission submission = task.getSubmission();
+        VerdictReportDTO report = new VerdictReportDTO(submission.getStatus(), submission.getResult(),
+                submission.getRunTime(), submission.getMemoryUsed(), task.getProblem().getVersion(), judged);
+        try {
+            if (!reportVerdict(submission.getId(), report)) {
+                // Another judge can take it now rather than once the lease runs out
+                releaseClaim(submission.getId());
+            }
+        } finally {
+            held.remove(submission.getId());
+        }
+    }
+
+    @Override
+    public void release(JudgeTask task) {
+        releaseClaim(task.getSubmission().getId());
+    }
+
+    // Whether the backend took the verdict or no longer wants it
+    private boolean reportVerdict(Long submissionId, VerdictReportDTO report) {
+        for (int attempt = 1; attempt <= VERDICT_ATTEMPTS; attempt++) {
+            try {
+                restClient.post()
+                        .uri("/api/judge/agents/{agentId}/verdicts/{submissionId}", agentId, submissionId)
+                        .body(report)
+                        .retrieve()
+                        .toBodilessEntity();
+                return true;
+            } catch (HttpClientErrorException.Conflict e) {
+                log.warn("Verdict for submission {} discarded, the claim expired", submissionId);
+                return true;
+            } catch (RestClientException e) {
+                log.warn("Could not report verdict for submission {} (attempt {}): {}", submissionId, attempt,
+                        e.getMessage());
+                if (!sleep(RETRY_DELAY)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands the submission back to the backend. If that fails too, the claim is no longer renewed
+     * and lapses.
+     */
+    private void releaseClaim(Long submissionId) {
+        held.remove(submissionId);
+        try {
+            restClient.post()
+                    .uri("/api/judge/agents/{agentId}/releases/{submissionId}", agentId, submissionId)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientException e) {
+            log.warn("Could not hand submission {} back, its claim will lapse: {}", submissionId, e.getMessage());
+        }
+    }
+
+    private void claimBatch(int batchSize) throws InterruptedException {
+        try {
+            JudgeTaskDTO[] tasks = restClient.post()
+                    .uri("/api/judge/agents/{agentId}/claims?max={max}&waitMillis={waitMillis}",
+                            agentId, batchSize, settings.getPollWait().toMillis())
+                    .retrieve()
+                    .body(JudgeTaskDTO[].class);
+            if (tasks != null) {
+                for (JudgeTaskDTO task : tasks) {
+                    held.add(task.getSubmissionId());
+                    claimed.add(task);
+                }
+            }
+        } catch (RestClientException e) {
+            log.warn("Could not claim work from {}: {}", settings.getBackendUrl(), e.getMessage());
+            Thread.sleep(RETRY_DELAY.toMillis());
+        }
+    }
+
+    private JudgeTask toTask(JudgeTaskDTO task) throws IOException {
+        Submission submission = new Submission();
+        submission.setId(task.getSubmissionId());
+        submission.setUserName(task.getUserName());
+        submission.setLanguage(task.getLanguage());
+        submission.setCreatedAt(task.getCreatedAt());
+        submission.setStatus(SubmissionStatus.RUNNING);
+        Problem problem = problemFor(task.getProblemId(), task.getProblemVersion());
+        submission.setProblem(problem);
+        return new JudgeTask(submission, task.getCode(), problem);
+    }
+
+    private Problem problemFor(Long problemId, Long version) throws IOException {
+        Problem cached = problems.get(problemId);
+        if (cached != null && cached.getVersion().equals(version)) {
+            return cached;
+        }
+        JudgeProblemDTO fetched = restClient.get()
+                .uri("/api/judge/problems/{problemId}", problemId)
+                .retrieve()
+                .body(JudgeProblemDTO.class);
+        Problem problem = new Problem();
+        problem.setId(fetched.getId());
+        problem.setVersion(fetched.getVersion());
+        problem.setTimeLimitMillis(fetched.getTimeLimitMillis());
+        problem.setMemoryLimitMb(fetched.getMemoryLimitMb());
+        problem.setTestCases(fetched.getTestCases());
+        for (TestCase testCase : fetched.getTestCases()) {
+            fetchTestData(testCase.getInputHash());
+            fetchTestData(testCase.getOutputHash());
+        }
+        problems.put(problemId, problem);
+        log.info("Fetched problem {} version {} with {} test cases", problemId, fetched.getVersion(),
+                fetched.getTestCases().size());
+        return problem;
+    }
+
+    private void fetchTestData(String hash) throws IOException {
+        if (testDataStore.contains(hash)) {
+            return;
+        }
+        TestDataStore.StoredData stored = restClient.get()
+                .uri("/api/judge/test-data/{hash}", hash)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange((request, response) -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new RestClientException("Test data " + hash + " unavailable: " + response.getStatusCode());
+                    }
+                    boolean gzipped = "gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+                    try (InputStream body = gzipped ? new GZIPInputStream(response.getBody()) : response.getBody()) {
+                        // Verified against the hash, so a damaged transfer is never judged with
+                        return testDataStore.put(body, hash);
+                    }
+                });
+        log.debug("Downloaded test data {} of {} bytes", hash, stored.getSize());
+    }
+
+    private void sendHeartbeat() {
+        try {
+            restClient.post()
+                    .uri("/api/judge/agents/{agentId}/heartbeat", agentId)
+                    .body(List.copyOf(held))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientException e) {
+            log.warn("Heartbeat to {} failed: {}", settings.getBackendUrl(), e.getMessage());
+        }
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
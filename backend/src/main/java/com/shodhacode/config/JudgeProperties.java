@@ -0,0 +1,362 @@
+package com.shodhacode.config;
+
+import com.shodhacode.judge.Language;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "judge")
+public class JudgeProperties {
+
+    /**
+     * Judge submissions in this process. A backend can leave all judging to agents, which run
+     * this application with the agent profile.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of submissions judged concurrently. Zero or less means one per available core.
+     */
+    private int workers = 0;
+
+    /**
+     * Maximum number of concurrently judged submissions per language, keyed by language name.
+     * Languages without an entry may use every worker but one, so a single language can never
+     * occupy the whole pool.
+     */
+    private Map<String, Integer> languageLimits = new HashMap<>();
+
+    /**
+     * Directory holding judge workspaces and materialized test inputs. Best placed on a RAM-backed
+     * file system; if its parent does not exist the system temp directory is used instead.
+     */
+    private String workspaceRoot = "/dev/shm/shodhacode";
+
+    /**
+     * Wall-clock limit for compiling a submission, separate from the per-test limit.
+     */
+    private Duration compileTimeout = Duration.ofSeconds(30);
+
+    /**
+     * CPU time a single test run may use, for problems without their own time limit.
+     */
+    private Duration defaultTimeLimit = Duration.ofSeconds(2);
+
+    /**
+     * Memory a single test run may use, for problems without their own memory limit.
+     */
+    private DataSize defaultMemoryLimit = DataSize.ofMegabytes(256);
+
+    /**
+     * Wall-clock allowance of a run as a multiple of its CPU time limit, so programs that block
+     * instead of computing are stopped too.
+     */
+    private int wallTimeFactor = 3;
+
+    /**
+     * CPUs a run may use at once under cgroup v2, so parallel programs cannot crowd out
+     * neighbouring runs.
+     */
+    private double cpuQuota = 1.0;
+
+    /**
+     * Processes and threads a run may have at once under cgroup v2.
+     */
+    private int pidsLimit = 64;
+
+    /**
+     * cgroup v2 directory under which every test run gets its own cgroup for exact CPU and memory
+     * accounting. Must be writable by the backend; if it is not, runs are sampled from /proc.
+     */
+    private String cgroupRoot = "/sys/fs/cgroup/shodhacode";
+
+    /**
+     * How often a run's CPU time and peak memory are sampled when cgroup v2 is not available.
+     */
+    private Duration sampleInterval = Duration.ofMillis(10);
+
+    /**
+     * Output a single test run may produce before it is stopped.
+     */
+    private DataSize outputLimit = DataSize.ofMegabytes(64);
+
+    /**
+     * Fan each submission's test cases out across the run slots instead of running them one
+     * after another. The first failing test by index still decides the verdict.
+     */
+    private boolean parallelTests = false;
+
+    /**
+     * Test runs executing at once across all submissions in parallel mode. Zero or less means one
+     * per worker.
+     */
+    private int runSlots = 0;
+
+    /**
+     * Compilers and test programs running at once across all judges. Zero or less allows as many
+     * as the judge threads could start anyway; set it when judges run on virtual threads and
+     * {@link #workers} is raised beyond the cores.
+     */
+    private int processSlots = 0;
+
+    private VerdictCacheProperties verdictCache = new VerdictCacheProperties();
+
+    private JavaRunnerProperties javaRunners = new JavaRunnerProperties();
+
+    private StatusStreamProperties statusStream = new StatusStreamProperties();
+
+    private SchedulerProperties scheduler = new SchedulerProperties();
+
+    private PersistenceProperties persistence = new PersistenceProperties();
+
+    private QueueProperties queue = new QueueProperties();
+
+    private AgentProperties agent = new AgentProperties();
+
+    private TestDataProperties testData = new TestDataProperties();
+
+    public int resolveWorkers() {
+        return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    public Path resolveWorkspaceRoot() {
+        Path root = Paths.get(workspaceRoot);
+        if (root.getParent() != null && !Files.isDirectory(root.getParent())) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "shodhacode");
+        }
+        return root;
+    }
+
+    public int resolveRunSlots() {
+        return runSlots > 0 ? runSlots : resolveWorkers();
+    }
+
+    public int resolveProcessSlots() {
+        if (processSlots > 0) {
+            return processSlots;
+        }
+        return parallelTests ? Math.max(resolveWorkers(), resolveRunSlots()) : resolveWorkers();
+    }
+
+    public int resolveLanguageLimit(Language language) {
+        int poolSize = resolveWorkers();
+        Integer limit = languageLimits.get(language.getKey());
+        if (limit == null || limit <= 0) {
+            return Math.max(1, poolSize - 1);
+        }
+        return Math.min(limit, poolSize);
+    }
+
+    @Data
+    public static class VerdictCacheProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Upper bound on the number of cached verdicts.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * Upper bound on the estimated heap held by cached verdicts, dominated by result texts
+         * such as compiler diagnostics.
+         */
+        private long maxBytes = 16L * 1024 * 1024;
+    }
+
+    @Data
+    public static class JavaRunnerProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Number of pre-started runner JVMs. Zero or less sizes the pool to the Java lane.
+         */
+        private int poolSize = 0;
+
+        /**
+         * Test runs a runner serves before it is replaced with a fresh JVM.
+         */
+        private int maxRunsPerRunner = 100;
+
+        private List<String> jvmOptions = new ArrayList<>(List.of("-Xmx256m", "-XX:+UseSerialGC"));
+    }
+
+    @Data
+    public static class SchedulerProperties {
+
+        /**
+         * Submissions waiting to be judged. Beyond this, new submissions are turned away until the
+         * queue drains.
+         */
+        private int capacity = 10_000;
+
+        /**
+         * Submissions a user may make back to back before being rate limited.
+         */
+        private int userBurst = 10;
+
+        /**
+         * How often a rate-limited user earns back one submission.
+         */
+        private Duration userRefillInterval = Duration.ofSeconds(6);
+
+        /**
+         * Retry-After suggested to clients while the queue is full.
+         */
+        private Duration overloadRetryAfter = Duration.ofSeconds(10);
+
+        /**
+         * Rejudged submissions being judged at once. They are only taken when nothing else is
+         * waiting, and this keeps the rest of the judges free for submissions still to come.
+         */
+        private int rejudgeConcurrency = 1;
+    }
+
+    @Data
+    public static class QueueProperties {
+
+        /**
+         * Name under which this backend claims submissions. It must stay the same across restarts,
+         * so work interrupted by a crash is taken back at once rather than after its lease expires,
+         * and must differ between backends sharing a database. Empty means the host name.
+         */
+        private String workerId = "";
+
+        /**
+         * How long a claim survives without renewal. Claims are renewed every third of it while
+         * the backend is alive; a claim left to expire is judged again.
+         */
+        private Duration leaseDuration = Duration.ofSeconds(60);
+
+        public String resolveWorkerId() {
+            if (!workerId.isBlank()) {
+                return workerId;
+            }
+            try {
+                return InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                return "localhost";
+            }
+        }
+    }
+
+    @Data
+    public static class AgentProperties {
+
+        /**
+         * Shared secret agents present to the backend's judge API. Empty closes the API, and an
+         * agent without it refuses to start.
+         */
+        private String token = "";
+
+        /**
+         * Backend an agent takes its work from.
+         */
+        private String backendUrl = "http://localhost:8080";
+
+        /**
+         * Name an agent claims submissions under. Empty means the host name and process id, so
+         * several agents can share a machine.
+         */
+        private String id = "";
+
+        /**
+         * How long a claim request waits on the backend for work before returning empty.
+         */
+        private Duration pollWait = Duration.ofSeconds(10);
+
+        /**
+         * How often an agent renews the leases on its claims; well below the backend's
+         * judge.queue.lease-duration.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        public String resolveId() {
+            if (!id.isBlank()) {
+                return id;
+            }
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "localhost";
+            }
+            return host + "-" + ProcessHandle.current().pid();
+        }
+    }
+
+    @Data
+    public static class TestDataProperties {
+
+        /**
+         * Directory of the test data store. Files are named by the SHA-256 of their content, so
+         * several processes may share it.
+         */
+        private String root = "data/test-data";
+
+        /**
+         * Gzip new test files. Saves disk and transfer to agents, costs a decompression per test run.
+         */
+        private boolean compress = false;
+
+        /**
+         * Largest test file accepted by an upload.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+    }
+
+    @Data
+    public static class PersistenceProperties {
+
+        /**
+         * New submissions or status updates written in one transaction at most.
+         */
+        private int batchSize = 100;
+
+        /**
+         * How long the writer waits after the first write of a batch for others to join it.
+         */
+        private Duration flushDelay = Duration.ofMillis(2);
+
+        /**
+         * Sources at least this large are stored gzip-compressed. A negative size stores every
+         * source as it is.
+         */
+        private DataSize compressSourcesFrom = DataSize.ofKilobytes(1);
+    }
+
+    @Data
+    public static class StatusStreamProperties {
+
+        /**
+         * How long a status stream stays open without reaching a verdict. Browsers reconnect on
+         * their own and pick up the current status.
+         */
+        private Duration timeout = Duration.ofMinutes(2);
+
+        /**
+         * Streams open at once. Further subscribers are turned away and fall back to polling.
+         */
+        private int maxStreams = 10_000;
+
+        /**
+         * Threads writing status updates to subscribers, so a slow client never holds up judging.
+         */
+        private int sendThreads = 2;
+    }
+}
@@ -1,31 +1,123 @@
 package com.shodhacode.controller;
 
-import com.shodhacode.dto.ContestDTO;
 import com.shodhacode.dto.LeaderboardEntryDTO;
-import com.shodhacode.service.ContestService;
+import com.shodhacode.dto.LeaderboardSnapshotDTO;
+import com.shodhacode.service.ContestViewCache;
+import com.shodhacode.service.LeaderboardService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
+@Profile("!agent")
 @RequestMapping("/api/contests")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class ContestController {
     
-    private final ContestService contestService;
+    private final ContestViewCache contestViewCache;
+    private final LeaderboardService leaderboardService;
     
+    // Serves the cached, pre-serialized page; gzip-capable clients get the compressed bytes as is
     @GetMapping("/{contestId}")
-    public ResponseEntity<ContestDTO> getContest(@PathVariable Long contestId) {
-        ContestDTO contest = contestService.getContest(contestId);
-        return ResponseEntity.ok(contest);
+    public ResponseEntity<byte[]> getContest(
+            @PathVariable Long contestId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ContestViewCache.ContestView view = contestViewCache.get(contestId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String eTag = gzip ? view.getGzipETag() : view.getETag();
+        // Either encoding is the same page, so a client holding the other one is still current
+        if (eTagMatches(ifNoneMatch, view.getETag()) || eTagMatches(ifNoneMatch, view.getGzipETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(view.getGzip());
+        }
+        return response.body(view.getJson());
     }
     
     @GetMapping("/{contestId}/leaderboard")
-    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(@PathVariable Long contestId) {
-        List<LeaderboardEntryDTO> leaderboard = contestService.getLeaderboard(contestId);
-        return ResponseEntity.ok(leaderboard);
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
+            @PathVariable Long contestId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = leaderboardETag(leaderboardService.getVersion(contestId));
+        if (eTagMatches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        LeaderboardSnapshotDTO leaderboard = leaderboardService.getLeaderboard(contestId, Math.max(0, offset), Math.max(0, limit));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(leaderboardETag(leaderboard.getVersion()))
+                .body(leaderboard.getEntries());
+    }
+    
+    // Rows whose rank or score may have changed after the given version
+    @GetMapping(path = "/{contestId}/leaderboard", params = "since")
+    public ResponseEntity<LeaderboardSnapshotDTO> getLeaderboardChanges(
+            @PathVariable Long contestId,
+            @RequestParam long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = leaderboardETag(leaderboardService.getVersion(contestId));
+        if (eTagMatches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        LeaderboardSnapshotDTO changes = leaderboardService.getChangesSince(contestId, since);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(leaderboardETag(changes.getVersion()))
+                .body(changes);
+    }
+    
+    @GetMapping("/{contestId}/leaderboard/users/{userName}")
+    public ResponseEntity<LeaderboardEntryDTO> getLeaderboardEntry(@PathVariable Long contestId, @PathVariable String userName) {
+        return leaderboardService.getEntry(contestId, userName)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    private static String leaderboardETag(long version) {
+        return "\"" + version + "\"";
+    }
+    
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .build();
     }
 }
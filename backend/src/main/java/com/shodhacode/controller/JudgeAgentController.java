@@ -0,0 +1,82 @@
+package com.shodhacode.controller;
+
+import com.shodhacode.dto.JudgeProblemDTO;
+import com.shodhacode.dto.JudgeTaskDTO;
+import com.shodhacode.dto.VerdictReportDTO;
+import com.shodhacode.service.JudgeAgentService;
+import com.shodhacode.service.JudgeClaimLostException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Judge API for agents. Agents pull work, so only the backend has to be reachable.
+ */
+@RestController
+@RequestMapping("/api/judge")
+@Profile("!agent")
+@RequiredArgsConstructor
+public class JudgeAgentController {
+
+    private final JudgeAgentService judgeAgentService;
+    private final JudgeApiToken judgeApiToken;
+
+    @PostMapping("/agents/{agentId}/claims")
+    public ResponseEntity<List<JudgeTaskDTO>> claim(@PathVariable String agentId,
+                                                    @RequestParam(defaultValue = "1") int max,
+                                                    @RequestParam(defaultValue = "0") long waitMillis,
+                                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization)
+            throws InterruptedException {
+        judgeApiToken.verify(authorization);
+        return ResponseEntity.ok(judgeAgentService.claim(agentId, max, Duration.ofMillis(waitMillis)));
+    }
+
+    @PostMapping("/agents/{agentId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable String agentId, @RequestBody List<Long> submissionIds,
+                                          @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        judgeAgentService.heartbeat(agentId, submissionIds);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/agents/{agentId}/releases/{submissionId}")
+    public ResponseEntity<Void> release(@PathVariable String agentId, @PathVariable Long submissionId,
+                                        @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        judgeAgentService.release(agentId, submissionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/agents/{agentId}/verdicts/{submissionId}")
+    public ResponseEntity<Void> reportVerdict(@PathVariable String agentId, @PathVariable Long submissionId,
+                                              @RequestBody VerdictReportDTO report,
+                                              @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        judgeAgentService.reportVerdict(agentId, submissionId, report);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/problems/{problemId}")
+    public ResponseEntity<JudgeProblemDTO> getProblem(@PathVariable Long problemId,
+                                                      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        return ResponseEntity.ok(judgeAgentService.getProblem(problemId));
+    }
+
+    @ExceptionHandler(JudgeClaimLostException.class)
+    public ResponseEntity<Map<String, String>> claimLost(JudgeClaimLostException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badReport(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.shodhacode.controller;
+
+import com.shodhacode.config.JudgeProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Checks the bearer token of requests to the judge API, {@code judge.agent.token}. The API hands
+ * out sources and expected outputs and accepts verdicts, so without a token it stays closed.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeApiToken {
+
+    private final JudgeProperties judgeProperties;
+
+    @PostConstruct
+    public void logState() {
+        if (judgeProperties.getAgent().getToken().isBlank()) {
+            log.info("Judge API closed: set judge.agent.token to use agents or the test data and rejudge endpoints");
+        }
+    }
+
+    public void verify(String authorization) {
+        String token = judgeProperties.getAgent().getToken();
+        if (token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "The judge API is closed, judge.agent.token is not set");
+        }
+        byte[] expected = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        byte[] presented = authorization != null ? authorization.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (!MessageDigest.isEqual(expected, presented)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid agent token");
+        }
+    }
+}
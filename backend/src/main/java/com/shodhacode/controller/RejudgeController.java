@@ -0,0 +1,58 @@
+package com.shodhacode.controller;
+
+import com.shodhacode.dto.RejudgeJobDTO;
+import com.shodhacode.dto.RejudgeRequestDTO;
+import com.shodhacode.service.RejudgeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk rejudges, part of the judge API and protected by its token. A job is started with a POST
+ * and its progress polled with a GET.
+ */
+@RestController
+@RequestMapping("/api/judge/rejudges")
+@Profile("!agent")
+@RequiredArgsConstructor
+public class RejudgeController {
+
+    private final RejudgeService rejudgeService;
+    private final JudgeApiToken judgeApiToken;
+
+    @PostMapping
+    public ResponseEntity<RejudgeJobDTO> start(@RequestBody RejudgeRequestDTO request,
+                                               @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        RejudgeJobDTO job = rejudgeService.start(request);
+        return ResponseEntity.accepted().location(URI.create("/api/judge/rejudges/" + job.getId())).body(job);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RejudgeJobDTO>> getJobs(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        return ResponseEntity.ok(rejudgeService.getJobs());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<RejudgeJobDTO> getJob(@PathVariable long jobId,
+                                                @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        judgeApiToken.verify(authorization);
+        return ResponseEntity.ok(rejudgeService.getJob(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No rejudge " + jobId)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -2,21 +2,29 @@ package com.shodhacode.controller;
 
 import com.shodhacode.dto.SubmissionCreateRequest;
 import com.shodhacode.dto.SubmissionDTO;
+import com.shodhacode.service.SubmissionRejectedException;
 import com.shodhacode.service.SubmissionService;
+import com.shodhacode.service.SubmissionStatusStream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
 @RestController
+@Profile("!agent")
 @RequestMapping("/api/submissions")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.RETRY_AFTER)
 public class SubmissionController {
     
     private final SubmissionService submissionService;
+    private final SubmissionStatusStream submissionStatusStream;
     
     @PostMapping
     public ResponseEntity<Map<String, Long>> createSubmission(@RequestBody SubmissionCreateRequest request) {
@@ -25,9 +33,23 @@ public class SubmissionController {
                 .body(Map.of("submissionId", submission.getId()));
     }
     
+    @ExceptionHandler(SubmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> submissionRejected(SubmissionRejectedException e) {
+        // Retry-After is in whole seconds, rounded up so clients never come back too early
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", retryAfterSeconds));
+    }
+    
     @GetMapping("/{submissionId}")
     public ResponseEntity<SubmissionDTO> getSubmission(@PathVariable Long submissionId) {
         SubmissionDTO submission = submissionService.getSubmission(submissionId);
         return ResponseEntity.ok(submission);
     }
+    
+    @GetMapping(path = "/{submissionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSubmissionStatus(@PathVariable Long submissionId) {
+        return submissionStatusStream.subscribe(submissionId);
+    }
 }
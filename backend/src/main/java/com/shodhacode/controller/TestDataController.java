@@ -0,0 +1,83 @@
+package com.shodhacode.controller;
+
+import com.shodhacode.dto.JudgeProblemDTO;
+import com.shodhacode.dto.TestCaseRefDTO;
+import com.shodhacode.dto.TestDataDTO;
+import com.shodhacode.service.TestDataService;
+import com.shodhacode.storage.TestDataStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test data of the judge API. Files are uploaded and downloaded as raw streams, then attached to
+ * a problem by hash. Protected by the judge API token, since expected outputs are secret.
+ */
+@RestController
+@RequestMapping("/api/judge")
+@Profile("!agent")
+@RequiredArgsConstructor
+public class TestDataController {
+
+    private final TestDataService testDataService;
+    private final TestDataStore testDataStore;
+    private final JudgeApiToken judgeApiToken;
+
+    @PostMapping(path = "/test-data", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<TestDataDTO> upload(InputStream content,
+                                              @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization)
+            throws IOException {
+        judgeApiToken.verify(authorization);
+        TestDataDTO stored = testDataService.upload(content);
+        return ResponseEntity.created(URI.create("/api/judge/test-data/" + stored.getHash())).body(stored);
+    }
+
+    /**
+     * Streams the file. A compressed file goes out as stored to clients that accept gzip.
+     */
+    @GetMapping("/test-data/{hash}")
+    public ResponseEntity<Resource> download(@PathVariable String hash,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization)
+            throws IOException {
+        judgeApiToken.verify(authorization);
+        TestDataStore.StoredFile file = testDataStore.find(hash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No test data " + hash));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (!file.isCompressed()) {
+            return response.body(new FileSystemResource(file.getPath()));
+        }
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(new FileSystemResource(file.getPath()));
+        }
+        return response.body(new InputStreamResource(testDataStore.open(hash)));
+    }
+
+    @PutMapping("/problems/{problemId}/test-cases")
+    public ResponseEntity<JudgeProblemDTO> replaceTestCases(@PathVariable Long problemId,
+                                                            @RequestBody List<TestCaseRefDTO> testCases,
+                                                            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization)
+            throws IOException {
+        judgeApiToken.verify(authorization);
+        return ResponseEntity.ok(testDataService.replaceTestCases(problemId, testCases));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
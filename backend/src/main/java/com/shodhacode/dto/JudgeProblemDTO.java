@@ -0,0 +1,19 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.model.TestCase;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeProblemDTO {
+    private Long id;
+    private Long version;
+    private Long timeLimitMillis;
+    private Integer memoryLimitMb;
+    private List<TestCase> testCases;
+}
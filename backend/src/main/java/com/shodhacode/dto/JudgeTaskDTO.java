@@ -0,0 +1,20 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeTaskDTO {
+    private Long submissionId;
+    private String userName;
+    private Long problemId;
+    private Long problemVersion;
+    private String language;
+    private String code;
+    private LocalDateTime createdAt;
+}
@@ -4,11 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class LeaderboardEntryDTO {
+    private Integer rank;
     private String userName;
     private Long acceptedCount;
     private Long bestTimeMillis;
+    private LocalDateTime lastAcceptedAt;
 }
@@ -0,0 +1,19 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshotDTO {
+    private Long version;
+    // Rows on the whole leaderboard, not just in this response
+    private Integer size;
+    // False when entries only holds the rows that changed since the requested version
+    private Boolean full;
+    private List<LeaderboardEntryDTO> entries;
+}
@@ -11,4 +11,6 @@ public class ProblemDTO {
     private Long id;
     private String title;
     private String statement;
+    private Long timeLimitMillis;
+    private Long memoryLimitMb;
 }
@@ -0,0 +1,28 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejudgeJobDTO {
+    private Long id;
+    private Long contestId;
+    private Long problemId;
+    private Set<SubmissionStatus> statuses;
+    private boolean finished;
+    private int total;
+    private int judged;
+    // Judged submissions whose verdict differs from before
+    private int changed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    // Extrapolated from the pace so far; null until the first verdict
+    private Long etaSeconds;
+}
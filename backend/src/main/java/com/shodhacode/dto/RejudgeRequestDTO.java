@@ -0,0 +1,19 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejudgeRequestDTO {
+    // Exactly one of the two
+    private Long contestId;
+    private Long problemId;
+    // Verdicts to rejudge; empty rejudges every verdict
+    private Set<SubmissionStatus> statuses;
+}
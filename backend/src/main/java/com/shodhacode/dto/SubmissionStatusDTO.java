@@ -0,0 +1,17 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionStatusDTO {
+    private Long id;
+    private SubmissionStatus status;
+    private String result;
+    private Long runTime;
+    private Long memoryUsed;
+}
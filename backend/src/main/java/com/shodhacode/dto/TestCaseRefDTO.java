@@ -0,0 +1,14 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseRefDTO {
+    // Hashes of uploaded test data
+    private String inputHash;
+    private String outputHash;
+}
@@ -0,0 +1,14 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestDataDTO {
+    // SHA-256 of the content, hex encoded
+    private String hash;
+    private long size;
+}
@@ -0,0 +1,20 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VerdictReportDTO {
+    private SubmissionStatus status;
+    private String result;
+    private Long runTime;
+    private Long memoryUsed;
+    // Test data the verdict was reached on
+    private Long problemVersion;
+    // False if the status stands for a failure of the agent rather than of the submission
+    private boolean judged;
+}
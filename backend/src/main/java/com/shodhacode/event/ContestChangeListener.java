@@ -0,0 +1,61 @@
+package com.shodhacode.event;
+
+import com.shodhacode.model.Contest;
+import com.shodhacode.model.Problem;
+import com.shodhacode.service.ContestViewCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on contests and problems that drops the affected contest from the
+ * {@link ContestViewCache}. Eviction is repeated after commit, so a page rebuilt from the old rows
+ * while the transaction was still open does not survive it.
+ */
+@Component
+public class ContestChangeListener {
+
+    // Looked up lazily, the listener is created while the entity manager factory is being built
+    private final ObjectProvider<ContestViewCache> contestViewCache;
+
+    public ContestChangeListener(ObjectProvider<ContestViewCache> contestViewCache) {
+        this.contestViewCache = contestViewCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Long contestId = contestIdOf(entity);
+        if (contestId == null) {
+            return;
+        }
+        evict(contestId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(contestId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long contestId) {
+        contestViewCache.ifAvailable(cache -> cache.evict(contestId));
+    }
+
+    private static Long contestIdOf(Object entity) {
+        if (entity instanceof Contest contest) {
+            return contest.getId();
+        }
+        if (entity instanceof Problem problem && problem.getContest() != null) {
+            return problem.getContest().getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.shodhacode.event;
+
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a submission's new status has been saved: when it is created, when judging
+ * starts and when a verdict is reached.
+ */
+@Value
+public class SubmissionStatusEvent {
+    Long submissionId;
+    Long contestId;
+    Long problemId;
+    String userName;
+    // Null for a newly created submission
+    SubmissionStatus previousStatus;
+    SubmissionStatus status;
+    String result;
+    LocalDateTime createdAt;
+    Long runTime;
+    Long memoryUsed;
+
+    public static SubmissionStatusEvent of(Submission submission, SubmissionStatus previousStatus) {
+        return new SubmissionStatusEvent(
+                submission.getId(),
+                submission.getProblem().getContest().getId(),
+                submission.getProblem().getId(),
+                submission.getUserName(),
+                previousStatus,
+                submission.getStatus(),
+                submission.getResult(),
+                submission.getCreatedAt(),
+                submission.getRunTime(),
+                submission.getMemoryUsed());
+    }
+
+    public boolean isVerdict() {
+        return status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING;
+    }
+}
@@ -0,0 +1,23 @@
+package com.shodhacode.judge;
+
+import lombok.Value;
+
+@Value
+public class CompileResult {
+    boolean success;
+    String diagnostics;
+    // Says more about the load on the judge than about the code
+    boolean timedOut;
+
+    public static CompileResult success() {
+        return new CompileResult(true, "", false);
+    }
+
+    public static CompileResult failure(String diagnostics) {
+        return new CompileResult(false, diagnostics, false);
+    }
+
+    public static CompileResult timeout() {
+        return new CompileResult(false, "Compilation timed out", true);
+    }
+}
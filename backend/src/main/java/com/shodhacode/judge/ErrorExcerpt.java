@@ -0,0 +1,32 @@
+package com.shodhacode.judge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Drains a program's stderr to the end but keeps only its beginning, which is what ends up in
+ * the submission result.
+ */
+final class ErrorExcerpt {
+
+    private static final int MAX_EXCERPT_BYTES = 8 * 1024;
+
+    private ErrorExcerpt() {
+    }
+
+    static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream excerpt = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        boolean truncated = false;
+        try (stream) {
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                int kept = Math.min(n, MAX_EXCERPT_BYTES - excerpt.size());
+                excerpt.write(buffer, 0, kept);
+                truncated |= kept < n;
+            }
+        }
+        return truncated ? excerpt + "\n..." : excerpt.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.shodhacode.judge;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Expected output of a test run, opened by the runner only once the program's output is checked.
+ */
+@FunctionalInterface
+public interface ExpectedOutput {
+
+    Reader open() throws IOException;
+}
@@ -0,0 +1,142 @@
+package com.shodhacode.judge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Entry point of a warm runner JVM. It is launched by {@link JavaRunnerPool} from a copy of this
+ * class file, so it must depend on nothing but the JDK and must not declare nested classes.
+ *
+ * <p>The runner reads one command per line from its real stdin:
+ * {@code RUN <classDir> <inputFile> <outputFile> <errorFile>}, tab separated. It loads {@code Main}
+ * from the class directory in a fresh class loader, points {@code System.in/out/err} at the given
+ * files, runs {@code main} and answers on its real stdout with
+ * {@code DONE <exitCode> <wallNanos> <healthy> <cpuNanos> <heapBytes>}. CPU time is that of the
+ * thread running {@code main}; heap is the sum of the heap pools' peak usage during the run minus
+ * the heap in use when it started, an upper bound on what the program itself needed. A runner
+ * that reports itself unhealthy is retired by the pool.
+ */
+public final class JavaRunnerMain {
+
+    private static final long USER_THREAD_STACK_SIZE = 64L * 1024 * 1024;
+
+    private JavaRunnerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream control = System.out;
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in));
+
+        // If user code calls System.exit, whatever it printed must still reach the output file
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.flush()));
+
+        control.println("READY");
+        control.flush();
+
+        String line;
+        while ((line = commands.readLine()) != null) {
+            String[] parts = line.split("\t");
+            if (parts.length != 5 || !"RUN".equals(parts[0])) {
+                control.println("ERROR\tmalformed command");
+                control.flush();
+                continue;
+            }
+            control.println(run(parts[1], parts[2], parts[3], parts[4]));
+            control.flush();
+        }
+    }
+
+    private static String run(String classDir, String inputFile, String outputFile, String errorFile) {
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        int threadsBefore = Thread.activeCount();
+
+        int[] exitCode = {0};
+        boolean[] healthy = {true};
+        long[] wallNanos = {0};
+        long[] cpuNanos = {-1};
+
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        long heapBefore = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+            heapBefore += pool.getUsage().getUsed();
+        }
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(inputFile));
+             PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(outputFile)), false);
+             PrintStream err = new PrintStream(new FileOutputStream(errorFile), true);
+             URLClassLoader loader = new URLClassLoader(new URL[]{Paths.get(classDir).toUri().toURL()},
+                     ClassLoader.getPlatformClassLoader())) {
+            System.setIn(in);
+            System.setOut(out);
+            System.setErr(err);
+
+            // The user's main gets a dedicated thread with a generous stack, like a fresh JVM would
+            Thread userThread = new Thread(null, () -> {
+                long start = System.nanoTime();
+                try {
+                    Class<?> mainClass = Class.forName("Main", true, loader);
+                    Method mainMethod = mainClass.getMethod("main", String[].class);
+                    mainMethod.invoke(null, (Object) new String[0]);
+                } catch (InvocationTargetException e) {
+                    Throwable cause = e.getCause();
+                    cause.printStackTrace(err);
+                    exitCode[0] = 1;
+                    healthy[0] = !(cause instanceof Error);
+                } catch (Throwable t) {
+                    t.printStackTrace(err);
+                    exitCode[0] = 1;
+                    healthy[0] = !(t instanceof Error);
+                } finally {
+                    wallNanos[0] = System.nanoTime() - start;
+                    cpuNanos[0] = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+                }
+            }, "main", USER_THREAD_STACK_SIZE);
+            userThread.start();
+            userThread.join();
+            out.flush();
+        } catch (Throwable t) {
+            t.printStackTrace(originalErr);
+            exitCode[0] = 1;
+            healthy[0] = false;
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        // Threads left behind by user code would leak into the next run
+        if (Thread.activeCount() > threadsBefore) {
+            healthy[0] = false;
+        }
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            heapPeak += pool.getPeakUsage().getUsed();
+        }
+        return "DONE\t" + exitCode[0] + "\t" + wallNanos[0] + "\t" + healthy[0] + "\t" + cpuNanos[0]
+                + "\t" + Math.max(0, heapPeak - heapBefore);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+}
@@ -0,0 +1,218 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a set of pre-started JVMs that run compiled Java submissions, so a test run costs a class
+ * load instead of a JVM startup. Runners are replaced after a fixed number of runs, after a
+ * timeout, or when they report leaked threads or a fatal error. Runners share one JVM heap, so
+ * time and memory limits are checked against what the runner reports after the run rather than
+ * enforced by the kernel. The reported heap peak includes garbage the runner had no reason to
+ * collect yet, so a run over the memory limit is left to a fresh JVM to decide.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JavaRunnerPool {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 5_000;
+    private static final String OUT_OF_MEMORY = "java.lang.OutOfMemoryError";
+
+    private final JudgeProperties judgeProperties;
+
+    private final BlockingQueue<WarmJavaRunner> idleRunners = new LinkedBlockingQueue<>();
+    // Runners that are idle, busy or being started
+    private final AtomicInteger runnerCount = new AtomicInteger();
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("java-runner-launcher-"));
+    private final ExecutorService responseReaders = Executors.newCachedThreadPool(daemonThreadFactory());
+    // Under the workspace root, so judges sharing a host do not overwrite each other's runner class
+    private Path runnerDir;
+    private List<String> launchCommand;
+
+    @PostConstruct
+    public void start() {
+        JudgeProperties.JavaRunnerProperties settings = judgeProperties.getJavaRunners();
+        if (!settings.isEnabled()) {
+            log.info("Warm Java runners disabled, Java submissions start a fresh JVM per test");
+            return;
+        }
+
+        runnerDir = judgeProperties.resolveWorkspaceRoot().resolve("runner");
+        try {
+            launchCommand = buildLaunchCommand(installRunnerClass(), settings.getJvmOptions());
+        } catch (IOException e) {
+            log.warn("Warm Java runners unavailable: {}", e.getMessage());
+            return;
+        }
+
+        int poolSize = settings.getPoolSize() > 0 ? settings.getPoolSize() : defaultPoolSize();
+        log.info("Starting {} warm Java runners", poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            runnerCount.incrementAndGet();
+            launcher.execute(this::launchRunner);
+        }
+    }
+
+    public int getRunnerCount() {
+        return runnerCount.get();
+    }
+
+    public int getIdleRunnerCount() {
+        return idleRunners.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        launcher.shutdownNow();
+        WarmJavaRunner runner;
+        while ((runner = idleRunners.poll()) != null) {
+            runner.destroy();
+        }
+        responseReaders.shutdownNow();
+    }
+
+    /**
+     * Runs the compiled {@code Main} in {@code classDir} on a warm runner. Returns empty when no
+     * runner is available, in which case the caller should start a fresh JVM instead. Cancelling
+     * the run kills the runner, which is then replaced.
+     */
+    public Optional<JudgeResult> run(Path classDir, Path inputFile, Path outputFile, Path errorFile,
+                                     ExpectedOutput expectedOutput, RunLimits limits, RunCancellation cancellation)
+            throws IOException, InterruptedException {
+        if (runnerCount.get() == 0) {
+            return Optional.empty();
+        }
+        WarmJavaRunner runner = idleRunners.poll(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (runner == null) {
+            return Optional.empty();
+        }
+
+        Files.deleteIfExists(outputFile);
+        Files.deleteIfExists(errorFile);
+        long outputLimitBytes = judgeProperties.getOutputLimit().toBytes();
+        WarmJavaRunner.Outcome outcome;
+        Runnable destroyRunner = runner::destroy;
+        try {
+            cancellation.onCancel(destroyRunner);
+            outcome = runner.run(classDir, inputFile, outputFile, errorFile, limits.getWallTimeLimitMillis(),
+                    outputLimitBytes);
+        } finally {
+            // Once back in the pool the runner may be running another submission's test
+            cancellation.clear(destroyRunner);
+            release(runner);
+        }
+
+        ResourceUsage usage = outcome.toUsage();
+        if (outcome.getStatus() == WarmJavaRunner.Outcome.Status.TIMED_OUT || limits.exceedsTime(usage)) {
+            return Optional.of(JudgeResult.failed(JudgeResult.Outcome.TIME_LIMIT_EXCEEDED, "Time limit exceeded", usage));
+        }
+        if (limits.exceedsMemory(usage)) {
+            // Could be garbage in a heap sized for the pool; a heap sized for the problem tells
+            return Optional.empty();
+        }
+        if (outcome.getStatus() == WarmJavaRunner.Outcome.Status.OUTPUT_LIMIT_EXCEEDED) {
+            return Optional.of(JudgeResult.failed(JudgeResult.Outcome.OUTPUT_LIMIT_EXCEEDED, "Output limit exceeded", usage));
+        }
+
+        if (outcome.getExitCode() != 0) {
+            String error = Files.exists(errorFile) ? ErrorExcerpt.read(Files.newInputStream(errorFile)) : "";
+            if (error.contains(OUT_OF_MEMORY)) {
+                // The runner's heap is sized for the pool, not for this problem; let a fresh JVM decide
+                return Optional.empty();
+            }
+            return Optional.of(JudgeResult.failed(JudgeResult.Outcome.RUNTIME_ERROR, "Runtime error: " + error, usage));
+        }
+
+        // The output is already complete on disk, so it is checked as a stream after the run
+        try (InputStream output = Files.exists(outputFile) ? Files.newInputStream(outputFile) : InputStream.nullInputStream()) {
+            long comparisonStart = System.nanoTime();
+            OutputChecker checker = new OutputChecker(expectedOutput.open(), outputLimitBytes);
+            OutputChecker.Verdict verdict = checker.check(output);
+            return Optional.of(JudgeResult.fromVerdict(verdict, usage)
+                    .withComparisonNanos(System.nanoTime() - comparisonStart));
+        }
+    }
+
+    // Parallel test runs can keep every run slot busy with Java, otherwise one runner per Java lane is enough
+    private int defaultPoolSize() {
+        int javaLane = judgeProperties.resolveLanguageLimit(Language.JAVA);
+        return judgeProperties.isParallelTests() ? Math.max(javaLane, judgeProperties.resolveRunSlots()) : javaLane;
+    }
+
+    private void release(WarmJavaRunner runner) {
+        if (runner.isReusable(judgeProperties.getJavaRunners().getMaxRunsPerRunner())) {
+            idleRunners.offer(runner);
+            return;
+        }
+        runner.destroy();
+        launcher.execute(this::launchRunner);
+    }
+
+    private void launchRunner() {
+        try {
+            idleRunners.offer(WarmJavaRunner.start(launchCommand, runnerDir, STARTUP_TIMEOUT_MILLIS, responseReaders));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runnerCount.decrementAndGet();
+        } catch (Exception e) {
+            log.warn("Failed to start warm Java runner: {}", e.getMessage());
+            runnerCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Copies the runner's class file out of the application so a plain {@code java} command can
+     * load it, whether the backend runs from a class directory or a packaged jar.
+     */
+    private Path installRunnerClass() throws IOException {
+        String resource = JavaRunnerMain.class.getName().replace('.', '/') + ".class";
+        Path target = runnerDir.resolve(resource);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = JavaRunnerMain.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Runner class not found: " + resource);
+            }
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return runnerDir;
+    }
+
+    private List<String> buildLaunchCommand(Path classPath, List<String> jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath.toString());
+        command.add(JavaRunnerMain.class.getName());
+        return command;
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("java-runner-io-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,52 @@
+package com.shodhacode.judge;
+
+import lombok.Value;
+import lombok.With;
+
+/**
+ * Outcome of running a compiled submission against a single test case.
+ */
+@Value
+public class JudgeResult {
+
+    public enum Outcome {
+        PASSED,
+        WRONG_ANSWER,
+        OUTPUT_LIMIT_EXCEEDED,
+        RUNTIME_ERROR,
+        TIME_LIMIT_EXCEEDED,
+        MEMORY_LIMIT_EXCEEDED,
+        // The judge itself failed to run the program
+        EXECUTION_ERROR
+    }
+
+    Outcome outcome;
+    String error;
+    ResourceUsage usage;
+    // Time spent checking output once the program had exited, zero when nothing was left to check
+    @With
+    long comparisonNanos;
+
+    public boolean isSuccess() {
+        return outcome == Outcome.PASSED;
+    }
+
+    public static JudgeResult passed(ResourceUsage usage) {
+        return new JudgeResult(Outcome.PASSED, "", usage, 0);
+    }
+
+    public static JudgeResult failed(Outcome outcome, String error, ResourceUsage usage) {
+        return new JudgeResult(outcome, error, usage, 0);
+    }
+
+    /**
+     * Maps the checker's view of the output to a result for a program that exited normally.
+     */
+    public static JudgeResult fromVerdict(OutputChecker.Verdict verdict, ResourceUsage usage) {
+        return switch (verdict) {
+            case MATCH -> passed(usage);
+            case MISMATCH -> failed(Outcome.WRONG_ANSWER, "", usage);
+            case OUTPUT_LIMIT_EXCEEDED -> failed(Outcome.OUTPUT_LIMIT_EXCEEDED, "Output limit exceeded", usage);
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.shodhacode.judge;
+
+import java.util.List;
+import java.util.Locale;
+
+public enum Language {
+    JAVA("java", "Main.java",
+            List.of("javac", "-encoding", "UTF-8", "Main.java"),
+            List.of("java", "-cp", ".", "Main")),
+    // Byte-compiling up front surfaces syntax errors as compilation errors and lets every run
+    // load the cached bytecode instead of re-parsing the source
+    PYTHON("python", "main.py",
+            List.of("python3", "-c", "import py_compile; py_compile.compile('main.py', cfile='main.pyc', doraise=True)"),
+            List.of("python3", "main.pyc")),
+    CPP("cpp", "main.cpp",
+            List.of("g++", "main.cpp", "-o", "main"),
+            List.of("./main"));
+
+    private final String key;
+    private final String sourceFileName;
+    private final List<String> compileCommand;
+    private final List<String> runCommand;
+
+    Language(String key, String sourceFileName, List<String> compileCommand, List<String> runCommand) {
+        this.key = key;
+        this.sourceFileName = sourceFileName;
+        this.compileCommand = compileCommand;
+        this.runCommand = runCommand;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    public List<String> getCompileCommand() {
+        return compileCommand;
+    }
+
+    public List<String> getRunCommand() {
+        return runCommand;
+    }
+
+    /**
+     * Resolves the language name sent by the client. Unknown names fall back to Java,
+     * matching how submissions have always been judged.
+     */
+    public static Language fromName(String name) {
+        if (name == null) {
+            return JAVA;
+        }
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "python" -> PYTHON;
+            case "cpp", "c++" -> CPP;
+            default -> JAVA;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.model.TestCase;
+import com.shodhacode.storage.TestDataStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs test cases as local processes, Java on a warm runner JVM when one is free. A fresh Java
+ * process gets the problem's memory limit as its heap, so its garbage is collected before it
+ * could count against the limit.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalTestCaseRunner implements TestCaseRunner {
+
+    private final JavaRunnerPool javaRunnerPool;
+    private final ProcessTestRunner processTestRunner;
+    private final ProcessSlots processSlots;
+    private final TestDataStore testDataStore;
+
+    @Override
+    public JudgeResult run(Path workDir, TestCase testCase, Path inputFile, int testNumber, Language language,
+                           RunLimits limits, RunCancellation cancellation) throws IOException, InterruptedException {
+        return processSlots.run(() -> runProgram(workDir, testCase, inputFile, testNumber, language, limits, cancellation));
+    }
+
+    private JudgeResult runProgram(Path workDir, TestCase testCase, Path inputFile, int testNumber, Language language,
+                                   RunLimits limits, RunCancellation cancellation) throws IOException, InterruptedException {
+        // Streamed from the store while the output is checked
+        ExpectedOutput expectedOutput = () -> testDataStore.openReader(testCase.getOutputHash());
+        if (language == Language.JAVA) {
+            Optional<JudgeResult> warmResult = javaRunnerPool.run(workDir, inputFile,
+                    workDir.resolve("output-" + testNumber + ".txt"), workDir.resolve("error-" + testNumber + ".txt"),
+                    expectedOutput, limits, cancellation);
+            if (warmResult.isPresent()) {
+                return warmResult.get();
+            }
+        }
+
+        // Execute the compiled artifact
+        List<String> command = language == Language.JAVA ? javaCommand(limits) : language.getRunCommand();
+        return processTestRunner.run(command, workDir, inputFile, expectedOutput, limits, cancellation);
+    }
+
+    private static List<String> javaCommand(RunLimits limits) {
+        List<String> command = new ArrayList<>(Language.JAVA.getRunCommand());
+        command.add(1, "-Xmx" + limits.getMemoryLimitKb() + "k");
+        return command;
+    }
+}
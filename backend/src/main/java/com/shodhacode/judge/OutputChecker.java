@@ -0,0 +1,120 @@
+package com.shodhacode.judge;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Compares a program's output with the expected output line by line while it is being produced,
+ * so neither side is ever held in memory as a whole. Trailing whitespace on a line, leading
+ * whitespace of the output and blank lines at either end are ignored, like trimming both outputs
+ * before comparing them. Checking stops at the first differing line or once the output grows past
+ * the configured limit, and the caller can kill the program right away.
+ */
+public class OutputChecker {
+
+    public enum Verdict {
+        MATCH,
+        MISMATCH,
+        OUTPUT_LIMIT_EXCEEDED
+    }
+
+    private final BufferedReader expected;
+    private final long outputLimitBytes;
+
+    public OutputChecker(Reader expected, long outputLimitBytes) {
+        this.expected = new BufferedReader(expected);
+        this.outputLimitBytes = outputLimitBytes;
+    }
+
+    public Verdict check(InputStream actualOutput) throws IOException {
+        try (BufferedReader actual = new BufferedReader(
+                new InputStreamReader(new LimitedInputStream(actualOutput, outputLimitBytes)))) {
+            return compare(actual) ? Verdict.MATCH : Verdict.MISMATCH;
+        } catch (OutputLimitExceededException e) {
+            return Verdict.OUTPUT_LIMIT_EXCEEDED;
+        } finally {
+            expected.close();
+        }
+    }
+
+    private boolean compare(BufferedReader actual) throws IOException {
+        boolean firstLine = true;
+        while (true) {
+            // Blank lines only have to match between two non-blank lines
+            int actualBlankLines = 0;
+            String actualLine;
+            while ((actualLine = actual.readLine()) != null && actualLine.isBlank()) {
+                actualBlankLines++;
+            }
+
+            int expectedBlankLines = 0;
+            String expectedLine;
+            while ((expectedLine = expected.readLine()) != null && expectedLine.isBlank()) {
+                expectedBlankLines++;
+            }
+
+            if (actualLine == null || expectedLine == null) {
+                return actualLine == null && expectedLine == null;
+            }
+            if (firstLine) {
+                actualLine = actualLine.stripLeading();
+                expectedLine = expectedLine.stripLeading();
+                firstLine = false;
+            } else if (actualBlankLines != expectedBlankLines) {
+                return false;
+            }
+            if (!actualLine.stripTrailing().equals(expectedLine.stripTrailing())) {
+                return false;
+            }
+        }
+    }
+
+    private static class OutputLimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        OutputLimitExceededException() {
+            super("Output limit exceeded");
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws OutputLimitExceededException {
+            count += n;
+            if (count > limit) {
+                throw new OutputLimitExceededException();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.shodhacode.judge;
+
+/**
+ * Largest CPU time and peak memory over the test runs of one submission. Runs may report
+ * concurrently.
+ */
+public class PeakUsage {
+
+    private long cpuTimeMillis = -1;
+    private long peakMemoryKb = -1;
+
+    public synchronized void record(ResourceUsage usage) {
+        cpuTimeMillis = Math.max(cpuTimeMillis, usage.getCpuTimeMillis());
+        peakMemoryKb = Math.max(peakMemoryKb, usage.getPeakMemoryKb());
+    }
+
+    // Null when no run reported a figure
+    public synchronized Long getCpuTimeMillis() {
+        return cpuTimeMillis < 0 ? null : cpuTimeMillis;
+    }
+
+    public synchronized Long getPeakMemoryKb() {
+        return peakMemoryKb < 0 ? null : peakMemoryKb;
+    }
+}
@@ -0,0 +1,50 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the compilers and submitted programs running at once, independent of how many submissions
+ * are being judged. With virtual threads a judge waiting here holds no platform thread, so the
+ * judge count can be raised well past the cores while the machine still runs a fixed number of
+ * programs.
+ */
+@Component
+@Slf4j
+public class ProcessSlots {
+
+    private final Semaphore slots;
+    private final int total;
+
+    public ProcessSlots(JudgeProperties judgeProperties) {
+        this.total = judgeProperties.resolveProcessSlots();
+        this.slots = new Semaphore(total, true);
+        log.info("Up to {} compilers and test runs execute at once", total);
+    }
+
+    public <T> T run(SlotTask<T> task) throws IOException, InterruptedException {
+        slots.acquire();
+        try {
+            return task.run();
+        } finally {
+            slots.release();
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getWaiting() {
+        return slots.getQueueLength();
+    }
+
+    @FunctionalInterface
+    public interface SlotTask<T> {
+        T run() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,145 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a compiled submission as a fresh process. Stdout and stderr are drained while the program
+ * runs: stdout straight into an {@link OutputChecker}, which kills the program on the first wrong
+ * line or once the output limit is exceeded, and stderr into a bounded excerpt. CPU time and memory
+ * are measured and limited by a {@link RunMeter}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessTestRunner {
+
+    // Grace period for the drains to reach end of stream after the program exited
+    private static final long DRAIN_TIMEOUT_MILLIS = 1_000;
+    // Exit value Java reports for a process that died of SIGKILL
+    private static final int EXIT_CODE_KILLED = 128 + 9;
+
+    private final JudgeProperties judgeProperties;
+    private final ResourceMonitor resourceMonitor;
+
+    private final ExecutorService streamDrains = Executors.newCachedThreadPool(daemonThreadFactory());
+
+    @PreDestroy
+    public void stop() {
+        streamDrains.shutdownNow();
+    }
+
+    public JudgeResult run(List<String> command, Path workDir, Path inputFile, ExpectedOutput expectedOutput,
+                           RunLimits limits, RunCancellation cancellation) throws IOException, InterruptedException {
+        try (RunMeter meter = resourceMonitor.newMeter(limits)) {
+            return run(meter, command, workDir, inputFile, expectedOutput, limits, cancellation);
+        }
+    }
+
+    private JudgeResult run(RunMeter meter, List<String> command, Path workDir, Path inputFile, ExpectedOutput expectedOutput,
+                            RunLimits limits, RunCancellation cancellation) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(meter.wrap(command));
+        pb.directory(workDir.toFile());
+        // The kernel feeds stdin straight from the input file
+        pb.redirectInput(inputFile.toFile());
+
+        long startTime = System.nanoTime();
+        Process process = pb.start();
+        meter.attach(process);
+        cancellation.onCancel(process::destroyForcibly);
+
+        AtomicBoolean stoppedByChecker = new AtomicBoolean();
+        Future<OutputChecker.Verdict> stdout = streamDrains.submit(() -> {
+            // Opened by the drain, so a drain cancelled before it starts leaves nothing open
+            OutputChecker checker = new OutputChecker(expectedOutput.open(), judgeProperties.getOutputLimit().toBytes());
+            OutputChecker.Verdict verdict = checker.check(process.getInputStream());
+            if (verdict != OutputChecker.Verdict.MATCH && process.isAlive()) {
+                stoppedByChecker.set(true);
+                process.destroyForcibly();
+            }
+            return verdict;
+        });
+        Future<String> stderr = streamDrains.submit(() -> ErrorExcerpt.read(process.getErrorStream()));
+
+        boolean finished = process.waitFor(limits.getWallTimeLimitMillis(), TimeUnit.MILLISECONDS);
+        long wallTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        if (!finished) {
+            process.destroyForcibly();
+            stdout.cancel(true);
+            stderr.cancel(true);
+            ResourceUsage usage = finish(meter, process, wallTimeMillis);
+            if (meter.isMemoryLimitExceeded()) {
+                return memoryLimitExceeded(usage);
+            }
+            return timeLimitExceeded(usage);
+        }
+
+        OutputChecker.Verdict verdict;
+        String error;
+        long exitedAt = System.nanoTime();
+        long comparisonNanos;
+        try {
+            verdict = stdout.get(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            // The checker runs alongside the program, only what is left after exit adds to the latency
+            comparisonNanos = System.nanoTime() - exitedAt;
+            error = stderr.get(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Something the program started is still holding its output open
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            return timeLimitExceeded(meter.finish(wallTimeMillis));
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read program output", e.getCause());
+        }
+
+        ResourceUsage usage = meter.finish(wallTimeMillis);
+        // A run killed for a limit usually dies with a signal, so limits are checked before the exit code
+        if (meter.isMemoryLimitExceeded() || limits.exceedsMemory(usage)) {
+            return memoryLimitExceeded(usage);
+        }
+        if (meter.isTimeLimitExceeded() || limits.exceedsTime(usage)) {
+            return timeLimitExceeded(usage);
+        }
+        // The checker only counts as the cause if its kill is what ended the program
+        boolean killedByChecker = stoppedByChecker.get() && process.exitValue() == EXIT_CODE_KILLED;
+        if (process.exitValue() != 0 && !killedByChecker) {
+            return JudgeResult.failed(JudgeResult.Outcome.RUNTIME_ERROR, "Runtime error: " + error, usage);
+        }
+        return JudgeResult.fromVerdict(verdict, usage).withComparisonNanos(comparisonNanos);
+    }
+
+    private static JudgeResult timeLimitExceeded(ResourceUsage usage) {
+        return JudgeResult.failed(JudgeResult.Outcome.TIME_LIMIT_EXCEEDED, "Time limit exceeded", usage);
+    }
+
+    private static JudgeResult memoryLimitExceeded(ResourceUsage usage) {
+        return JudgeResult.failed(JudgeResult.Outcome.MEMORY_LIMIT_EXCEEDED, "Memory limit exceeded", usage);
+    }
+
+    // Accounting of a killed process is only complete once it is gone
+    private static ResourceUsage finish(RunMeter meter, Process process, long wallTimeMillis) throws InterruptedException {
+        process.waitFor(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        return meter.finish(wallTimeMillis);
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("judge-io-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,407 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out a {@link RunMeter} per test run. Where a writable cgroup v2 hierarchy is available,
+ * every run gets its own cgroup with a memory cap, CPU quota and pids limit, and the kernel's
+ * accounting is read once the run is over, which is exact. Elsewhere the process tree is sampled
+ * from {@code /proc} while it runs and killed once it is over a limit; figures can then miss the
+ * last sampling interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResourceMonitor {
+
+    private static final Path CGROUP_FS = Paths.get("/sys/fs/cgroup");
+    private static final Path PROC = Paths.get("/proc");
+    // USER_HZ, the unit of the CPU times in /proc/<pid>/stat
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final int CGROUP_REMOVE_ATTEMPTS = 20;
+    private static final long CPU_PERIOD_MICROS = 100_000;
+
+    private final JudgeProperties judgeProperties;
+
+    private final AtomicLong runCounter = new AtomicLong();
+    private ScheduledExecutorService sampler;
+    // Parent of the per-run cgroups, null when runs are sampled instead
+    private Path cgroupBase;
+
+    @PostConstruct
+    public void start() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("judge-sampler-");
+        threadFactory.setDaemon(true);
+        sampler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        cgroupBase = prepareCgroupBase(Paths.get(judgeProperties.getCgroupRoot()));
+        if (cgroupBase != null) {
+            log.info("Measuring test runs with cgroup v2 under {}", cgroupBase);
+        } else {
+            log.info("cgroup v2 is not available to the judge, sampling /proc to measure test runs");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sampler.shutdownNow();
+    }
+
+    public boolean isCgroupAvailable() {
+        return cgroupBase != null;
+    }
+
+    RunMeter newMeter(RunLimits limits) {
+        long intervalMillis = Math.max(1, judgeProperties.getSampleInterval().toMillis());
+        if (cgroupBase != null) {
+            Path cgroup = cgroupBase.resolve("run-" + runCounter.incrementAndGet());
+            try {
+                Files.createDirectory(cgroup);
+                applyLimits(cgroup, limits);
+                return new CgroupMeter(cgroup, limits, intervalMillis);
+            } catch (IOException e) {
+                log.warn("Could not set up cgroup {}, sampling this run instead: {}", cgroup, e.getMessage());
+                removeCgroup(cgroup);
+            }
+        }
+        return new SamplingMeter(limits, intervalMillis);
+    }
+
+    private void applyLimits(Path cgroup, RunLimits limits) throws IOException {
+        long quotaMicros = Math.max(1_000, Math.round(judgeProperties.getCpuQuota() * CPU_PERIOD_MICROS));
+        Files.writeString(cgroup.resolve("cpu.max"), quotaMicros + " " + CPU_PERIOD_MICROS);
+        Files.writeString(cgroup.resolve("memory.max"), Long.toString(limits.getMemoryLimitKb() * 1024));
+        // Swapping would let a run exceed its memory limit in effect and skew its timing
+        Path swapMax = cgroup.resolve("memory.swap.max");
+        if (Files.exists(swapMax)) {
+            Files.writeString(swapMax, "0");
+        }
+        Path pidsMax = cgroup.resolve("pids.max");
+        if (Files.exists(pidsMax)) {
+            Files.writeString(pidsMax, Integer.toString(judgeProperties.getPidsLimit()));
+        }
+    }
+
+    private static Path prepareCgroupBase(Path base) {
+        if (!Files.exists(CGROUP_FS.resolve("cgroup.controllers")) || !base.startsWith(CGROUP_FS)) {
+            return null;
+        }
+        try {
+            Files.createDirectories(base);
+            removeStaleRuns(base);
+            // Each controller is enabled on its own, pids is optional
+            for (String controller : List.of("+cpu", "+memory", "+pids")) {
+                try {
+                    Files.writeString(base.resolve("cgroup.subtree_control"), controller);
+                } catch (IOException e) {
+                    log.debug("Could not enable {} for {}: {}", controller, base, e.getMessage());
+                }
+            }
+            Path probe = base.resolve("probe");
+            Files.createDirectories(probe);
+            boolean usable = Files.exists(probe.resolve("cpu.stat")) && Files.exists(probe.resolve("memory.peak"));
+            Files.delete(probe);
+            return usable ? base : null;
+        } catch (IOException | SecurityException e) {
+            log.debug("cgroup v2 unavailable under {}: {}", base, e.getMessage());
+            return null;
+        }
+    }
+
+    // Cgroups left behind by a previous backend process that did not shut down cleanly
+    private static void removeStaleRuns(Path base) throws IOException {
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(base, "run-*")) {
+            for (Path run : runs) {
+                removeCgroup(run);
+            }
+        }
+    }
+
+    private static void removeCgroup(Path cgroup) {
+        Path kill = cgroup.resolve("cgroup.kill");
+        for (int attempt = 0; attempt < CGROUP_REMOVE_ATTEMPTS; attempt++) {
+            try {
+                Files.deleteIfExists(cgroup);
+                return;
+            } catch (IOException e) {
+                // Still populated; kill whatever is left and give the kernel a moment to reap it
+                try {
+                    if (Files.exists(kill)) {
+                        Files.writeString(kill, "1");
+                    }
+                    Thread.sleep(5);
+                } catch (IOException ignored) {
+                    // Retried below
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.warn("Could not remove cgroup {}", cgroup);
+    }
+
+    private static long readLong(Path file) {
+        try {
+            return Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Value of one "key value" line in a flat-keyed cgroup file such as cpu.stat
+    private static long readKey(Path file, String key) {
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(key + " ")) {
+                    return Long.parseLong(line.substring(key.length() + 1).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Reported as unknown
+        }
+        return -1;
+    }
+
+    /**
+     * Common part of both meters: a periodic check that stops the run as soon as it is over its CPU
+     * time or memory limit.
+     */
+    private abstract class WatchingMeter implements RunMeter {
+
+        protected final RunLimits limits;
+        private final long intervalMillis;
+        protected ProcessHandle handle;
+        private ScheduledFuture<?> watch;
+        private volatile boolean timeLimitExceeded;
+        private volatile boolean memoryLimitExceeded;
+
+        WatchingMeter(RunLimits limits, long intervalMillis) {
+            this.limits = limits;
+            this.intervalMillis = intervalMillis;
+        }
+
+        @Override
+        public void attach(Process process) {
+            handle = process.toHandle();
+            watch = sampler.scheduleAtFixedRate(this::check, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public boolean isTimeLimitExceeded() {
+            return timeLimitExceeded;
+        }
+
+        @Override
+        public boolean isMemoryLimitExceeded() {
+            return memoryLimitExceeded;
+        }
+
+        protected void stopWatching() {
+            if (watch != null) {
+                watch.cancel(false);
+            }
+        }
+
+        protected void markMemoryLimitExceeded() {
+            memoryLimitExceeded = true;
+        }
+
+        private void check() {
+            if (!handle.isAlive()) {
+                return;
+            }
+            ResourceUsage usage = sample();
+            if (usage.hasCpuTime() && usage.getCpuTimeMillis() > limits.getTimeLimitMillis()) {
+                timeLimitExceeded = true;
+                kill();
+            } else if (limits.exceedsMemory(usage)) {
+                memoryLimitExceeded = true;
+                kill();
+            }
+        }
+
+        // Current figures of the running program; wall time is not needed here
+        protected abstract ResourceUsage sample();
+
+        protected void kill() {
+            handle.descendants().forEach(ProcessHandle::destroyForcibly);
+            handle.destroyForcibly();
+        }
+    }
+
+    /**
+     * Starts the program inside a fresh cgroup: a shell writes its own pid into the cgroup and then
+     * execs the command, so the program and everything it spawns are accounted and limited from the
+     * first instruction. The kernel enforces the memory, CPU quota and pids limits.
+     */
+    private final class CgroupMeter extends WatchingMeter {
+
+        private final Path cgroup;
+        private boolean closed;
+
+        CgroupMeter(Path cgroup, RunLimits limits, long intervalMillis) {
+            super(limits, intervalMillis);
+            this.cgroup = cgroup;
+        }
+
+        @Override
+        public List<String> wrap(List<String> command) {
+            List<String> wrapped = new ArrayList<>(command.size() + 4);
+            wrapped.add("/bin/sh");
+            wrapped.add("-c");
+            wrapped.add("echo $$ > \"$0\" && exec \"$@\"");
+            wrapped.add(cgroup.resolve("cgroup.procs").toString());
+            wrapped.addAll(command);
+            return wrapped;
+        }
+
+        @Override
+        public ResourceUsage finish(long wallTimeMillis) {
+            stopWatching();
+            long usageMicros = readKey(cgroup.resolve("cpu.stat"), "usage_usec");
+            long peakBytes = readLong(cgroup.resolve("memory.peak"));
+            if (readKey(cgroup.resolve("memory.events"), "oom_kill") > 0) {
+                markMemoryLimitExceeded();
+            }
+            close();
+            return new ResourceUsage(
+                    usageMicros < 0 ? -1 : usageMicros / 1_000,
+                    wallTimeMillis,
+                    peakBytes < 0 ? -1 : peakBytes / 1024);
+        }
+
+        @Override
+        public void close() {
+            stopWatching();
+            if (!closed) {
+                closed = true;
+                removeCgroup(cgroup);
+            }
+        }
+
+        @Override
+        protected ResourceUsage sample() {
+            long usageMicros = readKey(cgroup.resolve("cpu.stat"), "usage_usec");
+            // Memory is capped by the kernel, only CPU time needs watching
+            return new ResourceUsage(usageMicros < 0 ? -1 : usageMicros / 1_000, 0, -1);
+        }
+
+        @Override
+        protected void kill() {
+            try {
+                Files.writeString(cgroup.resolve("cgroup.kill"), "1");
+            } catch (IOException e) {
+                // Kernels before 5.14 have no cgroup.kill
+                super.kill();
+            }
+        }
+    }
+
+    /**
+     * Polls CPU time and peak resident set size of the process and its descendants. Both only grow
+     * for a given pid, so the latest sample of each pid is kept and the pids are summed.
+     */
+    private final class SamplingMeter extends WatchingMeter {
+
+        private final Map<Long, Long> cpuTicksByPid = new ConcurrentHashMap<>();
+        private final Map<Long, Long> peakKbByPid = new ConcurrentHashMap<>();
+
+        SamplingMeter(RunLimits limits, long intervalMillis) {
+            super(limits, intervalMillis);
+        }
+
+        @Override
+        public List<String> wrap(List<String> command) {
+            return command;
+        }
+
+        @Override
+        public ResourceUsage finish(long wallTimeMillis) {
+            stopWatching();
+            if (cpuTicksByPid.isEmpty()) {
+                return ResourceUsage.wallOnly(wallTimeMillis);
+            }
+            return new ResourceUsage(cpuTimeMillis(), wallTimeMillis, peakKbByPid.isEmpty() ? -1 : peakKb());
+        }
+
+        @Override
+        public void close() {
+            stopWatching();
+        }
+
+        @Override
+        protected ResourceUsage sample() {
+            record(handle.pid());
+            handle.descendants().forEach(descendant -> record(descendant.pid()));
+            return new ResourceUsage(cpuTimeMillis(), 0, peakKb());
+        }
+
+        private long cpuTimeMillis() {
+            long ticks = cpuTicksByPid.values().stream().mapToLong(Long::longValue).sum();
+            return ticks * 1_000 / CLOCK_TICKS_PER_SECOND;
+        }
+
+        private long peakKb() {
+            return peakKbByPid.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        private void record(long pid) {
+            Path dir = PROC.resolve(Long.toString(pid));
+            long ticks = cpuTicks(dir.resolve("stat"));
+            if (ticks >= 0) {
+                cpuTicksByPid.merge(pid, ticks, Math::max);
+            }
+            long peakKb = peakResidentKb(dir.resolve("status"));
+            if (peakKb >= 0) {
+                peakKbByPid.merge(pid, peakKb, Math::max);
+            }
+        }
+
+        // utime + stime, fields 14 and 15; the command name before them may contain spaces
+        private long cpuTicks(Path stat) {
+            try {
+                String content = Files.readString(stat, StandardCharsets.US_ASCII);
+                String[] fields = content.substring(content.lastIndexOf(')') + 2).split(" ");
+                return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            } catch (IOException | RuntimeException e) {
+                return -1;
+            }
+        }
+
+        private long peakResidentKb(Path status) {
+            try {
+                for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                    if (line.startsWith("VmHWM:")) {
+                        return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // The process exited between samples
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.shodhacode.judge;
+
+import lombok.Value;
+
+/**
+ * Resources consumed by a single test run. Figures that could not be measured are -1.
+ */
+@Value
+public class ResourceUsage {
+
+    private static final long UNKNOWN = -1;
+
+    long cpuTimeMillis;
+    long wallTimeMillis;
+    long peakMemoryKb;
+
+    public static ResourceUsage wallOnly(long wallTimeMillis) {
+        return new ResourceUsage(UNKNOWN, wallTimeMillis, UNKNOWN);
+    }
+
+    public static ResourceUsage none() {
+        return new ResourceUsage(UNKNOWN, 0, UNKNOWN);
+    }
+
+    public boolean hasCpuTime() {
+        return cpuTimeMillis >= 0;
+    }
+
+    public boolean hasPeakMemory() {
+        return peakMemoryKb >= 0;
+    }
+}
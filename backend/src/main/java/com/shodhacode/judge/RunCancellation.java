@@ -0,0 +1,52 @@
+package com.shodhacode.judge;
+
+/**
+ * Lets a judge cancel a test run from another thread. Whoever starts the run registers how to
+ * stop it, typically by killing its process; cancelling before registration stops the run as
+ * soon as it registers.
+ */
+public class RunCancellation {
+
+    private boolean cancelled;
+    private Runnable stopAction;
+
+    public static RunCancellation none() {
+        return new RunCancellation();
+    }
+
+    public void onCancel(Runnable action) {
+        boolean alreadyCancelled;
+        synchronized (this) {
+            stopAction = action;
+            alreadyCancelled = cancelled;
+        }
+        if (alreadyCancelled) {
+            action.run();
+        }
+    }
+
+    /**
+     * Drops the stop action once its run is over, so that a later cancel cannot reach whatever
+     * the action would stop by then, like a runner back in its pool. Waits for a stop under way.
+     */
+    public synchronized void clear(Runnable action) {
+        if (stopAction == action) {
+            stopAction = null;
+        }
+    }
+
+    // The action runs under the lock, so that it never runs after clear returns
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (stopAction != null) {
+            stopAction.run();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,36 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.model.Problem;
+import lombok.Value;
+
+/**
+ * Limits applied to each test run of a problem.
+ */
+@Value
+public class RunLimits {
+
+    long timeLimitMillis;
+    // Hard stop for runs that block instead of using CPU
+    long wallTimeLimitMillis;
+    long memoryLimitKb;
+
+    public static RunLimits forProblem(Problem problem, JudgeProperties judgeProperties) {
+        long timeLimitMillis = problem.getTimeLimitMillis() != null
+                ? problem.getTimeLimitMillis()
+                : judgeProperties.getDefaultTimeLimit().toMillis();
+        long memoryLimitKb = problem.getMemoryLimitMb() != null
+                ? problem.getMemoryLimitMb() * 1024L
+                : judgeProperties.getDefaultMemoryLimit().toKilobytes();
+        return new RunLimits(timeLimitMillis, timeLimitMillis * Math.max(1, judgeProperties.getWallTimeFactor()),
+                memoryLimitKb);
+    }
+
+    public boolean exceedsTime(ResourceUsage usage) {
+        return usage.hasCpuTime() ? usage.getCpuTimeMillis() > timeLimitMillis : usage.getWallTimeMillis() > timeLimitMillis;
+    }
+
+    public boolean exceedsMemory(ResourceUsage usage) {
+        return usage.hasPeakMemory() && usage.getPeakMemoryKb() > memoryLimitKb;
+    }
+}
@@ -0,0 +1,28 @@
+package com.shodhacode.judge;
+
+import java.util.List;
+
+/**
+ * Measures the resources of one test run and stops it once it goes over its {@link RunLimits}.
+ * Obtained from {@link ResourceMonitor} before the process is started; the command must be
+ * launched through {@link #wrap}.
+ */
+interface RunMeter extends AutoCloseable {
+
+    List<String> wrap(List<String> command);
+
+    void attach(Process process);
+
+    /**
+     * Figures for the finished run. Call once the process has exited or been killed.
+     */
+    ResourceUsage finish(long wallTimeMillis);
+
+    // Whether the run was stopped for going over a limit; valid after finish
+    boolean isTimeLimitExceeded();
+
+    boolean isMemoryLimitExceeded();
+
+    @Override
+    void close();
+}
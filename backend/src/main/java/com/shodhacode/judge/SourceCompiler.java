@@ -0,0 +1,65 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles a submission once in its working directory. Every test run then executes the
+ * artifact left behind, so compilation is neither repeated nor charged to the run time limit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SourceCompiler {
+
+    private static final String COMPILE_LOG = "compile.log";
+    private static final int MAX_DIAGNOSTICS_LENGTH = 8 * 1024;
+
+    private final JudgeProperties judgeProperties;
+    private final ProcessSlots processSlots;
+
+    public CompileResult compile(Path workDir, Language language) throws IOException, InterruptedException {
+        return processSlots.run(() -> runCompiler(workDir, language));
+    }
+
+    private CompileResult runCompiler(Path workDir, Language language) throws IOException, InterruptedException {
+        // Compiler output goes to a file so a chatty compiler can never block on a full pipe
+        Path compileLog = workDir.resolve(COMPILE_LOG);
+        ProcessBuilder pb = new ProcessBuilder(language.getCompileCommand());
+        pb.directory(workDir.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(compileLog.toFile());
+
+        long startTime = System.nanoTime();
+        Process process = pb.start();
+        boolean finished = process.waitFor(judgeProperties.getCompileTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        if (!finished) {
+            process.destroyForcibly();
+            return CompileResult.timeout();
+        }
+
+        log.debug("Compiled {} in {} ms", language.getKey(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        if (process.exitValue() != 0) {
+            return CompileResult.failure(readDiagnostics(compileLog));
+        }
+        return CompileResult.success();
+    }
+
+    private String readDiagnostics(Path compileLog) throws IOException {
+        String diagnostics = new String(Files.readAllBytes(compileLog), StandardCharsets.UTF_8);
+        if (diagnostics.length() > MAX_DIAGNOSTICS_LENGTH) {
+            return diagnostics.substring(0, MAX_DIAGNOSTICS_LENGTH) + "\n...";
+        }
+        return diagnostics;
+    }
+}
@@ -0,0 +1,16 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.model.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs a compiled submission against one test case. The judge worker only orchestrates; how the
+ * program is actually executed is up to the implementation.
+ */
+public interface TestCaseRunner {
+
+    JudgeResult run(Path workDir, TestCase testCase, Path inputFile, int testNumber, Language language,
+                    RunLimits limits, RunCancellation cancellation) throws IOException, InterruptedException;
+}
@@ -0,0 +1,216 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.TestCase;
+import com.shodhacode.storage.TestDataStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Copies each problem's test inputs from the {@link TestDataStore} to the workspace root once per
+ * problem version, so runs can attach them as stdin with a redirect from RAM-backed files. Judges
+ * hold a version's inputs while they run them; once a newer version of the problem has been
+ * materialized, an older one is deleted as soon as its last judge lets go.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TestInputCache {
+
+    private final JudgeProperties judgeProperties;
+    private final TestDataStore testDataStore;
+
+    // Guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Every entry gets a directory of its own, so a version deleted and materialized again
+    // never shares files with its predecessor
+    private final AtomicLong directorySequence = new AtomicLong();
+
+    @PostConstruct
+    public void clearStaleInputs() throws IOException {
+        // Inputs written by a previous run of the backend may belong to outdated problem versions
+        deleteRecursively(testsRoot());
+    }
+
+    /**
+     * Returns one input file per test case, in test case order, held until the returned inputs
+     * are closed. The problem must have its test cases loaded.
+     */
+    public Inputs acquire(Problem problem) throws IOException {
+        String key = problem.getId() + "-" + problem.getVersion();
+        Entry entry;
+        boolean materializing = false;
+        List<Entry> unused = new ArrayList<>();
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, problem.getId(), problem.getVersion(),
+                        testsRoot().resolve(key + "-" + directorySequence.incrementAndGet()));
+                supersede(entry, unused);
+                entries.put(key, entry);
+                materializing = true;
+            }
+            entry.holders++;
+        }
+        deleteAll(unused);
+
+        if (materializing) {
+            try {
+                entry.files.complete(materialize(problem, entry.directory));
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.files.completeExceptionally(e);
+                release(entry);
+                deleteAll(List.of(entry));
+                throw e;
+            }
+        }
+        try {
+            return new Inputs(entry, entry.files.join());
+        } catch (CompletionException e) {
+            release(entry);
+            throw new IOException("Test inputs unavailable for problem " + problem.getId(), e.getCause());
+        }
+    }
+
+    // Marks whichever of the problem's versions is older, the new entry or the existing ones
+    private void supersede(Entry created, List<Entry> unused) {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry other = it.next();
+            if (!other.problemId.equals(created.problemId)) {
+                continue;
+            }
+            if (other.version < created.version) {
+                other.superseded = true;
+                if (other.holders == 0) {
+                    it.remove();
+                    unused.add(other);
+                }
+            } else {
+                // A judge still working on an outdated version
+                created.superseded = true;
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        synchronized (this) {
+            entry.holders--;
+            if (entry.holders > 0 || !entry.superseded) {
+                return;
+            }
+            entries.remove(entry.key, entry);
+        }
+        deleteAll(List.of(entry));
+    }
+
+    private List<Path> materialize(Problem problem, Path target) throws IOException {
+        Path staging = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.createDirectories(staging);
+
+        List<TestCase> testCases = problem.getTestCases();
+        for (int i = 0; i < testCases.size(); i++) {
+            testDataStore.copyTo(testCases.get(i).getInputHash(), staging.resolve(i + ".in"));
+        }
+        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> inputs = new ArrayList<>(testCases.size());
+        for (int i = 0; i < testCases.size(); i++) {
+            inputs.add(target.resolve(i + ".in"));
+        }
+        log.debug("Materialized {} test inputs for problem {}", inputs.size(), target.getFileName());
+        return inputs;
+    }
+
+    private void deleteAll(List<Entry> unused) {
+        for (Entry entry : unused) {
+            try {
+                deleteRecursively(entry.directory.resolveSibling(entry.directory.getFileName() + ".tmp"));
+                deleteRecursively(entry.directory);
+            } catch (IOException e) {
+                log.warn("Could not delete the test inputs in {}: {}", entry.directory, e.getMessage());
+            }
+        }
+    }
+
+    private Path testsRoot() {
+        return judgeProperties.resolveWorkspaceRoot().resolve("tests");
+    }
+
+    private void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * A judge's hold on the inputs of one problem version.
+     */
+    public class Inputs implements AutoCloseable {
+
+        private final Entry entry;
+        private final List<Path> files;
+        private boolean closed;
+
+        private Inputs(Entry entry, List<Path> files) {
+            this.entry = entry;
+            this.files = files;
+        }
+
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        final String key;
+        final Long problemId;
+        final long version;
+        final Path directory;
+        final CompletableFuture<List<Path>> files = new CompletableFuture<>();
+        // Guarded by the cache
+        int holders;
+        boolean superseded;
+
+        Entry(String key, Long problemId, long version, Path directory) {
+            this.key = key;
+            this.problemId = problemId;
+            this.version = version;
+            this.directory = directory;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.shodhacode.judge;
+
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle on one pre-started {@link JavaRunnerMain} process. Not thread-safe; the pool hands each
+ * runner to a single caller at a time.
+ */
+class WarmJavaRunner {
+
+    private static final long WATCH_INTERVAL_MILLIS = 50;
+
+    private final Process process;
+    private final BufferedWriter commands;
+    private final BufferedReader responses;
+    private final Executor responseReader;
+    private int runs;
+    private boolean healthy = true;
+    private boolean timedOut;
+    private boolean outputLimitExceeded;
+
+    private WarmJavaRunner(Process process, Executor responseReader) {
+        this.process = process;
+        this.commands = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        this.responseReader = responseReader;
+    }
+
+    static WarmJavaRunner start(List<String> command, Path workingDir, long startupTimeoutMillis,
+                                Executor responseReader) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workingDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        WarmJavaRunner runner = new WarmJavaRunner(pb.start(), responseReader);
+        String greeting = runner.awaitResponse(startupTimeoutMillis);
+        if (!"READY".equals(greeting)) {
+            runner.destroy();
+            throw new IOException("Java runner did not start: " + greeting);
+        }
+        return runner;
+    }
+
+    Outcome run(Path classDir, Path inputFile, Path outputFile, Path errorFile, long timeoutMillis,
+                long outputLimitBytes) throws IOException, InterruptedException {
+        runs++;
+        long startTime = System.nanoTime();
+        commands.write(String.join("\t", "RUN", classDir.toString(), inputFile.toString(),
+                outputFile.toString(), errorFile.toString()));
+        commands.newLine();
+        commands.flush();
+
+        String response = awaitResponse(timeoutMillis, outputFile, outputLimitBytes);
+        long parentWallNanos = System.nanoTime() - startTime;
+
+        if (response == null) {
+            // Killed by the watchdog, or user code took the JVM down with System.exit
+            healthy = false;
+            if (timedOut) {
+                return new Outcome(Outcome.Status.TIMED_OUT, -1, parentWallNanos, -1, -1);
+            }
+            if (outputLimitExceeded) {
+                return new Outcome(Outcome.Status.OUTPUT_LIMIT_EXCEEDED, -1, parentWallNanos, -1, -1);
+            }
+            return new Outcome(Outcome.Status.EXITED, process.waitFor(), parentWallNanos, -1, -1);
+        }
+
+        String[] parts = response.split("\t");
+        if (parts.length != 6 || !"DONE".equals(parts[0])) {
+            healthy = false;
+            throw new IOException("Unexpected response from Java runner: " + response);
+        }
+        healthy = Boolean.parseBoolean(parts[3]);
+        return new Outcome(Outcome.Status.EXITED, Integer.parseInt(parts[1]), Long.parseLong(parts[2]),
+                Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+    }
+
+    boolean isReusable(int maxRuns) {
+        return healthy && runs < maxRuns && process.isAlive();
+    }
+
+    void destroy() {
+        process.destroyForcibly();
+    }
+
+    private String awaitResponse(long timeoutMillis) throws InterruptedException {
+        return awaitResponse(timeoutMillis, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the next control line, giving up after the timeout. While waiting, the output file is
+     * watched so a program printing without end is stopped at the limit instead of at the
+     * timeout. Returns null if the runner died or had to be killed.
+     */
+    private String awaitResponse(long timeoutMillis, Path outputFile, long outputLimitBytes)
+            throws InterruptedException {
+        CompletableFuture<String> line = CompletableFuture.supplyAsync(() -> {
+            try {
+                return responses.readLine();
+            } catch (IOException e) {
+                return null;
+            }
+        }, responseReader);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                return line.get(Math.max(0, Math.min(remainingMillis, WATCH_INTERVAL_MILLIS)), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (remainingMillis <= WATCH_INTERVAL_MILLIS) {
+                    timedOut = true;
+                    destroy();
+                    return null;
+                }
+                if (outputFile != null && outputSize(outputFile) > outputLimitBytes) {
+                    outputLimitExceeded = true;
+                    destroy();
+                    return null;
+                }
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    private static long outputSize(Path outputFile) {
+        try {
+            return Files.size(outputFile);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Value
+    static class Outcome {
+
+        enum Status {
+            EXITED,
+            TIMED_OUT,
+            OUTPUT_LIMIT_EXCEEDED
+        }
+
+        Status status;
+        int exitCode;
+        long wallNanos;
+        // -1 when the runner did not report back
+        long cpuNanos;
+        long heapBytes;
+
+        ResourceUsage toUsage() {
+            return new ResourceUsage(
+                    cpuNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpuNanos),
+                    TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                    heapBytes < 0 ? -1 : heapBytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Fixed set of working directories on the judge's RAM-backed workspace root, one per worker.
+ * A submission borrows one for compiling and running, and it is emptied rather than deleted
+ * when handed back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspacePool {
+
+    private final JudgeProperties judgeProperties;
+
+    private final BlockingQueue<Path> idleWorkspaces = new LinkedBlockingQueue<>();
+
+    @PostConstruct
+    public void createWorkspaces() throws IOException {
+        Path root = judgeProperties.resolveWorkspaceRoot().resolve("workspaces");
+        int size = judgeProperties.resolveWorkers();
+        for (int i = 0; i < size; i++) {
+            Path workspace = root.resolve("ws-" + i);
+            Files.createDirectories(workspace);
+            // Leftovers from a previous run of the backend
+            clear(workspace);
+            idleWorkspaces.add(workspace);
+        }
+        log.info("Created {} judge workspaces under {}", size, root);
+    }
+
+    public Path acquire() throws InterruptedException {
+        return idleWorkspaces.take();
+    }
+
+    public void release(Path workspace) {
+        clear(workspace);
+        idleWorkspaces.offer(workspace);
+    }
+
+    private void clear(Path workspace) {
+        try (Stream<Path> paths = Files.walk(workspace)) {
+            paths.sorted(Comparator.reverseOrder()) // Delete files before directories
+                    .filter(path -> !path.equals(workspace))
+                    .forEach(path -> {
+                        try {
+                            Files.delete(path);
+                        } catch (IOException e) {
+                            log.warn("Failed to delete: {}", path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Failed to clear workspace: {}", workspace, e);
+        }
+    }
+}
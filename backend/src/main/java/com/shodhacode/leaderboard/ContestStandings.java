@@ -0,0 +1,251 @@
+package com.shodhacode.leaderboard;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Materialized leaderboard of one contest. Accepts are folded in as they happen; page and rank
+ * queries walk an {@link OrderStatisticTree}, so both are logarithmic in the number of
+ * contestants.
+ *
+ * <p>Every change bumps a version. The positions each recent change disturbed are logged, so a
+ * client holding the board at an older version can be sent just the rows that may differ.
+ */
+public class ContestStandings {
+
+    // Changes kept for delta queries; clients further behind get the whole board
+    private static final int MAX_LOGGED_CHANGES = 1024;
+
+    private final OrderStatisticTree<Standing> ranking = new OrderStatisticTree<>(Standing.RANKING);
+    private final Map<String, Standing> standingsByUser = new HashMap<>();
+    private final Map<String, Map<Long, Solve>> solvesByUser = new HashMap<>();
+    private final Deque<Change> changes = new ArrayDeque<>();
+
+    // Seeded from the clock so versions keep increasing across restarts
+    private long version = System.currentTimeMillis();
+    // Oldest version from which the change log can still reconstruct a delta
+    private long oldestDeltaBase = version;
+
+    /**
+     * Folds an accepted submission into the user's row. Returns whether the row changed; repeated
+     * accepts of a solved problem only matter if they were submitted earlier or ran faster.
+     */
+    public synchronized boolean recordAccept(String userName, Long problemId, LocalDateTime submittedAt, Long runTime) {
+        Map<Long, Solve> solves = solvesByUser.computeIfAbsent(userName, user -> new HashMap<>());
+        Solve previous = solves.get(problemId);
+        Solve merged = previous == null
+                ? new Solve(submittedAt, runTime)
+                : previous.merge(submittedAt, runTime);
+        if (merged.equals(previous)) {
+            return false;
+        }
+        solves.put(problemId, merged);
+        return updateRow(userName, solves);
+    }
+
+    /**
+     * Replaces everything known about a user's solves, e.g. when rebuilding from the database.
+     * Returns whether the row changed.
+     */
+    public synchronized boolean replaceSolves(String userName, Map<Long, Solve> solves) {
+        Map<Long, Solve> copy = new HashMap<>(solves);
+        if (copy.isEmpty()) {
+            solvesByUser.remove(userName);
+        } else {
+            solvesByUser.put(userName, copy);
+        }
+        return updateRow(userName, copy);
+    }
+
+    /**
+     * Replaces the user's solve of one problem, null if it is no longer solved, e.g. after a
+     * rejudge took back an accept. Returns whether the row changed.
+     */
+    public synchronized boolean replaceSolve(String userName, Long problemId, Solve solve) {
+        Map<Long, Solve> solves = new HashMap<>(solvesByUser.getOrDefault(userName, Map.of()));
+        if (Objects.equals(solves.get(problemId), solve)) {
+            return false;
+        }
+        if (solve == null) {
+            solves.remove(problemId);
+        } else {
+            solves.put(problemId, solve);
+        }
+        return replaceSolves(userName, solves);
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized Snapshot page(int offset, int limit) {
+        return new Snapshot(version, ranking.size(), false, rows(offset, limit));
+    }
+
+    /**
+     * Rows that may have changed score or rank after {@code since}. Falls back to the whole board
+     * when the change log no longer reaches back that far, or when the delta would not be much
+     * smaller anyway.
+     */
+    public synchronized Snapshot changesSince(long since) {
+        int size = ranking.size();
+        if (since > version || since < oldestDeltaBase) {
+            return new Snapshot(version, size, true, rows(0, size));
+        }
+
+        // Merge the disturbed position ranges; anything outside them still holds the same row
+        List<int[]> ranges = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.getVersion() > since) {
+                int from = change.getFromPosition();
+                int to = Math.min(change.getToPosition(), size - 1);
+                if (from <= to) {
+                    ranges.add(new int[]{from, to});
+                }
+            }
+        }
+        ranges.sort(Comparator.comparingInt(range -> range[0]));
+        List<int[]> merged = new ArrayList<>();
+        int covered = 0;
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                covered += Math.max(0, range[1] - last[1]);
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+                covered += range[1] - range[0] + 1;
+            }
+        }
+        if (covered > size / 2) {
+            return new Snapshot(version, size, true, rows(0, size));
+        }
+
+        List<RankedStanding> rows = new ArrayList<>(covered);
+        for (int[] range : merged) {
+            rows.addAll(rows(range[0], range[1] - range[0] + 1));
+        }
+        return new Snapshot(version, size, false, rows);
+    }
+
+    public synchronized Optional<RankedStanding> find(String userName) {
+        Standing standing = standingsByUser.get(userName);
+        if (standing == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new RankedStanding(ranking.rankOf(standing) + 1, standing));
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    private List<RankedStanding> rows(int offset, int limit) {
+        List<Standing> rows = ranking.range(offset, limit);
+        return IntStream.range(0, rows.size())
+                .mapToObj(i -> new RankedStanding(offset + i + 1, rows.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean updateRow(String userName, Map<Long, Solve> solves) {
+        Standing previous = standingsByUser.get(userName);
+        Standing current = solves.isEmpty() ? null : toStanding(userName, solves);
+        if (Objects.equals(previous, current)) {
+            return false;
+        }
+        // A new row comes in from past the end, a dropped row leaves the last slot empty
+        int oldPosition = ranking.size();
+        if (previous != null) {
+            oldPosition = ranking.rankOf(previous);
+            ranking.remove(previous);
+            standingsByUser.remove(userName);
+        }
+        int newPosition = ranking.size();
+        if (current != null) {
+            ranking.add(current);
+            standingsByUser.put(userName, current);
+            newPosition = ranking.rankOf(current);
+        }
+        logChange(Math.min(oldPosition, newPosition), Math.max(oldPosition, newPosition));
+        return true;
+    }
+
+    private void logChange(int fromPosition, int toPosition) {
+        version++;
+        changes.addLast(new Change(version, fromPosition, toPosition));
+        if (changes.size() > MAX_LOGGED_CHANGES) {
+            oldestDeltaBase = changes.removeFirst().getVersion();
+        }
+    }
+
+    private static Standing toStanding(String userName, Map<Long, Solve> solves) {
+        LocalDateTime lastAcceptedAt = null;
+        Long bestTimeMillis = null;
+        for (Solve solve : solves.values()) {
+            if (lastAcceptedAt == null || solve.getFirstAcceptedAt().isAfter(lastAcceptedAt)) {
+                lastAcceptedAt = solve.getFirstAcceptedAt();
+            }
+            bestTimeMillis = minOf(bestTimeMillis, solve.getBestTimeMillis());
+        }
+        return new Standing(userName, solves.size(), lastAcceptedAt, bestTimeMillis);
+    }
+
+    private static Long minOf(Long a, Long b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Math.min(a, b);
+    }
+
+    /**
+     * A user's best accept of one problem: when it was first submitted and its fastest run.
+     */
+    @Value
+    public static class Solve {
+        LocalDateTime firstAcceptedAt;
+        Long bestTimeMillis;
+
+        Solve merge(LocalDateTime submittedAt, Long runTime) {
+            LocalDateTime first = submittedAt.isBefore(firstAcceptedAt) ? submittedAt : firstAcceptedAt;
+            return new Solve(first, minOf(bestTimeMillis, runTime));
+        }
+    }
+
+    @Value
+    public static class RankedStanding {
+        int rank;
+        Standing standing;
+    }
+
+    /**
+     * Rows of the board at {@code version}. Unless {@code full}, only the rows that may have
+     * changed; {@code size} is the number of rows on the whole board.
+     */
+    @Value
+    public static class Snapshot {
+        long version;
+        int size;
+        boolean full;
+        List<RankedStanding> rows;
+    }
+
+    // Zero-based positions whose rows a single change may have disturbed, inclusive
+    @Value
+    private static class Change {
+        long version;
+        int fromPosition;
+        int toPosition;
+    }
+}
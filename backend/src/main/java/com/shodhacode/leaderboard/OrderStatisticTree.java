@@ -0,0 +1,165 @@
+package com.shodhacode.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted set that also answers "how many elements come before this one" and "give me the
+ * elements at positions i..j" in logarithmic time. Implemented as a treap whose nodes track the
+ * size of their subtree. Elements must be distinct under the comparator. Not thread-safe.
+ */
+public class OrderStatisticTree<T> {
+
+    private final Comparator<? super T> comparator;
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void add(T value) {
+        Split<T> parts = split(root, value);
+        root = merge(merge(parts.before, new Node<>(value)), parts.rest);
+    }
+
+    public boolean remove(T value) {
+        int before = size();
+        root = remove(root, value);
+        return size() < before;
+    }
+
+    /**
+     * Number of elements ordered before {@code value}, which is its zero-based position if it is
+     * in the tree.
+     */
+    public int rankOf(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Up to {@code limit} elements in order, starting at zero-based position {@code offset}.
+     */
+    public List<T> range(int offset, int limit) {
+        List<T> out = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        collect(root, offset, limit, out);
+        return out;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    private void collect(Node<T> node, int offset, int limit, List<T> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (offset <= leftSize && out.size() < limit) {
+            out.add(node.value);
+        }
+        if (out.size() < limit) {
+            collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+        }
+    }
+
+    // Splits into elements ordered before value and the rest
+    private Split<T> split(Node<T> node, T value) {
+        if (node == null) {
+            return new Split<>(null, null);
+        }
+        if (comparator.compare(node.value, value) < 0) {
+            Split<T> parts = split(node.right, value);
+            node.right = parts.before;
+            node.update();
+            return new Split<>(node, parts.rest);
+        }
+        Split<T> parts = split(node.left, value);
+        node.left = parts.rest;
+        node.update();
+        return new Split<>(parts.before, node);
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private Node<T> remove(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, value);
+        } else {
+            node.right = remove(node.right, value);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<T> {
+        final T value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value) {
+            this.value = value;
+        }
+
+        void update() {
+            size = 1 + OrderStatisticTree.size(left) + OrderStatisticTree.size(right);
+        }
+    }
+
+    private static final class Split<T> {
+        final Node<T> before;
+        final Node<T> rest;
+
+        Split(Node<T> before, Node<T> rest) {
+            this.before = before;
+            this.rest = rest;
+        }
+    }
+}
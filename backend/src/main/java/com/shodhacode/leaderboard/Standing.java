@@ -0,0 +1,28 @@
+package com.shodhacode.leaderboard;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * One contestant's row on a contest leaderboard. Immutable, so it can sit in a sorted structure;
+ * a changed score is a new row.
+ */
+@Value
+public class Standing {
+
+    /**
+     * More distinct problems first, then whoever reached that count earlier.
+     */
+    public static final Comparator<Standing> RANKING = Comparator
+            .comparingInt(Standing::getSolvedCount).reversed()
+            .thenComparing(Standing::getLastAcceptedAt)
+            .thenComparing(Standing::getUserName);
+
+    String userName;
+    int solvedCount;
+    // Submission time of the accept that completed the current solved count
+    LocalDateTime lastAcceptedAt;
+    Long bestTimeMillis;
+}
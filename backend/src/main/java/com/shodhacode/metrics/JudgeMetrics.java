@@ -0,0 +1,100 @@
+package com.shodhacode.metrics;
+
+import com.shodhacode.judge.JavaRunnerPool;
+import com.shodhacode.judge.Language;
+import com.shodhacode.judge.ProcessSlots;
+import com.shodhacode.service.SubmissionScheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for the judge path: gauges for the queue and the runners, a latency histogram per
+ * {@link JudgePhase} tagged by language and outcome, and a matching flight recorder event so a
+ * recording taken during a contest shows the same phases per submission.
+ */
+@Component
+@RequiredArgsConstructor
+public class JudgeMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    // Absent in agents, which have no queue of their own
+    private final ObjectProvider<SubmissionScheduler> submissionScheduler;
+    private final JavaRunnerPool javaRunnerPool;
+    private final ProcessSlots processSlots;
+
+    private LongTaskTimer activeSubmissions;
+    private LongTaskTimer activeRuns;
+
+    @PostConstruct
+    public void registerGauges() {
+        submissionScheduler.ifAvailable(scheduler -> Gauge.builder("judge.queue.depth", scheduler, SubmissionScheduler::size)
+                .description("Submissions waiting for a judge lane")
+                .register(meterRegistry));
+        Gauge.builder("judge.java.runners", javaRunnerPool, JavaRunnerPool::getRunnerCount)
+                .description("Warm Java runners, idle or busy")
+                .tag("state", "total")
+                .register(meterRegistry);
+        Gauge.builder("judge.java.runners", javaRunnerPool, JavaRunnerPool::getIdleRunnerCount)
+                .description("Warm Java runners, idle or busy")
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("judge.process.waiting", processSlots, ProcessSlots::getWaiting)
+                .description("Judges waiting for a free process slot to compile or run")
+                .register(meterRegistry);
+        activeSubmissions = LongTaskTimer.builder("judge.submissions.active")
+                .description("Submissions being judged right now")
+                .register(meterRegistry);
+        activeRuns = LongTaskTimer.builder("judge.runs.active")
+                .description("Test case runs in progress right now")
+                .register(meterRegistry);
+    }
+
+    public LongTaskTimer.Sample startSubmission() {
+        return activeSubmissions.start();
+    }
+
+    public LongTaskTimer.Sample startRun() {
+        return activeRuns.start();
+    }
+
+    public void recordQueueWait(long submissionId, Language language, Duration wait) {
+        record(JudgePhase.QUEUE_WAIT, submissionId, language, "dispatched", Math.max(0, wait.toNanos()));
+    }
+
+    public void record(JudgePhase phase, long submissionId, Language language, Enum<?> outcome, long nanos) {
+        record(phase, submissionId, language, outcome.name().toLowerCase(Locale.ROOT), nanos);
+    }
+
+    public void record(JudgePhase phase, long submissionId, Language language, String outcome, long nanos) {
+        String languageTag = language != null ? language.getKey() : UNKNOWN;
+        Timer.builder(phase.getMetricName())
+                .description(phase.getDescription())
+                .tag("language", languageTag)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        JudgePhaseEvent event = new JudgePhaseEvent();
+        if (event.shouldCommit()) {
+            event.submissionId = submissionId;
+            event.phase = phase.name();
+            event.language = languageTag;
+            event.outcome = outcome;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+}
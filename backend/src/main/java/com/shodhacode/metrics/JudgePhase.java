@@ -0,0 +1,21 @@
+package com.shodhacode.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The stages a submission passes through on its way to a verdict, each recorded as its own
+ * latency histogram.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum JudgePhase {
+    QUEUE_WAIT("judge.queue.wait", "Time from submission until a judge lane picks it up"),
+    COMPILE("judge.compile", "Time spent compiling a submission"),
+    EXECUTION("judge.execution", "Time spent running a submission against one test case"),
+    COMPARISON("judge.comparison", "Time spent checking output after the program exited"),
+    PERSISTENCE("judge.persistence", "Time from a status change until its batched write is committed");
+
+    private final String metricName;
+    private final String description;
+}
@@ -0,0 +1,38 @@
+package com.shodhacode.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one judge phase of one submission. The elapsed time is a field
+ * rather than the event duration because some phases, like queue wait, are only known once
+ * they are over.
+ */
+@Name("com.shodhacode.JudgePhase")
+@Label("Judge Phase")
+@Category({"Shodh-a-Code", "Judge"})
+@Description("A phase of judging a submission")
+@StackTrace(false)
+class JudgePhaseEvent extends Event {
+
+    @Label("Submission Id")
+    long submissionId;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Language")
+    String language;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,96 @@
+package com.shodhacode.migration;
+
+import com.shodhacode.storage.TestDataStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the test inputs and expected outputs out of the test_cases table into the
+ * {@link TestDataStore}, leaving their hashes and sizes behind. A Spring bean, so Flyway runs it
+ * with the store the application uses.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class V3__Move_test_data_to_store extends BaseJavaMigration {
+
+    private final TestDataStore testDataStore;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table test_cases add column input_hash varchar(64)");
+            statement.execute("alter table test_cases add column input_size bigint");
+            statement.execute("alter table test_cases add column output_hash varchar(64)");
+            statement.execute("alter table test_cases add column output_size bigint");
+        }
+
+        List<Long> problemIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select distinct problem_id from test_cases")) {
+            while (rows.next()) {
+                problemIds.add(rows.getLong(1));
+            }
+        }
+        for (Long problemId : problemIds) {
+            moveTestCases(connection, problemId);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table test_cases drop column input");
+            statement.execute("alter table test_cases drop column expected_output");
+            for (String column : List.of("input_hash", "input_size", "output_hash", "output_size")) {
+                statement.execute("alter table test_cases alter column " + column + " set not null");
+            }
+        }
+        log.info("Moved the test data of {} problems to the test data store", problemIds.size());
+    }
+
+    // The rows have no key, so a problem's tests are rewritten as a whole, in the order they were read
+    private void moveTestCases(Connection connection, Long problemId) throws Exception {
+        List<TestDataStore.StoredData[]> moved = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "select input, expected_output from test_cases where problem_id = ?")) {
+            select.setLong(1, problemId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    moved.add(new TestDataStore.StoredData[] {
+                            store(rows.getString(1)), store(rows.getString(2))});
+                }
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement("delete from test_cases where problem_id = ?")) {
+            delete.setLong(1, problemId);
+            delete.executeUpdate();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into test_cases (problem_id, input_hash, input_size, output_hash, output_size) values (?, ?, ?, ?, ?)")) {
+            for (TestDataStore.StoredData[] testCase : moved) {
+                insert.setLong(1, problemId);
+                insert.setString(2, testCase[0].getHash());
+                insert.setLong(3, testCase[0].getSize());
+                insert.setString(4, testCase[1].getHash());
+                insert.setLong(5, testCase[1].getSize());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private TestDataStore.StoredData store(String content) throws Exception {
+        return testDataStore.put(content != null ? content : "");
+    }
+}
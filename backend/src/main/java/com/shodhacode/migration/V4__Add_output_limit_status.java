@@ -0,0 +1,47 @@
+package com.shodhacode.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets submissions have the OUTPUT_LIMIT_EXCEEDED status. The check on the status column was
+ * created without a name, so it has to be looked up before it can be replaced.
+ */
+@Component
+@Profile("!agent")
+public class V4__Add_output_limit_status extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<String> checks = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "select c.constraint_name from information_schema.table_constraints t " +
+                     "join information_schema.check_constraints c " +
+                     "on c.constraint_schema = t.constraint_schema and c.constraint_name = t.constraint_name " +
+                     "where t.table_name = 'SUBMISSIONS' and t.constraint_type = 'CHECK' " +
+                     "and c.check_clause like '%\"STATUS\"%'")) {
+            while (rows.next()) {
+                checks.add(rows.getString(1));
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            for (String check : checks) {
+                statement.execute("alter table submissions drop constraint \"" + check + "\"");
+            }
+            statement.execute("alter table submissions add constraint ck_submissions_status check (status in (" +
+                    "'PENDING','RUNNING','ACCEPTED','WRONG_ANSWER','RUNTIME_ERROR','TIMED_OUT'," +
+                    "'MEMORY_LIMIT_EXCEEDED','OUTPUT_LIMIT_EXCEEDED','COMPILATION_ERROR'))");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.shodhacode.model;
 
+import com.shodhacode.event.ContestChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +12,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(ContestChangeListener.class)
 @Table(name = "contests")
 @Data
 @EqualsAndHashCode(exclude = {"problems"})
@@ -19,7 +21,8 @@ import java.util.Set;
 public class Contest {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contest_seq")
+    @SequenceGenerator(name = "contest_seq", sequenceName = "contest_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
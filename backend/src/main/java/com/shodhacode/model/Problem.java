@@ -1,5 +1,6 @@
 package com.shodhacode.model;
 
+import com.shodhacode.event.ContestChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
+@EntityListeners(ContestChangeListener.class)
 @Table(name = "problems")
 @Data
 @NoArgsConstructor
@@ -15,7 +17,8 @@ import java.util.List;
 public class Problem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "problem_seq")
+    @SequenceGenerator(name = "problem_seq", sequenceName = "problem_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -28,6 +31,16 @@ public class Problem {
     @JoinColumn(name = "contest_id", nullable = false)
     private Contest contest;
     
+    // CPU time per test run; null uses the judge default
+    private Long timeLimitMillis;
+    
+    // Memory per test run; null uses the judge default
+    private Integer memoryLimitMb;
+    
+    // Bumped by Hibernate whenever the problem or its test cases change
+    @Version
+    private Long version;
+    
     @ElementCollection
     @CollectionTable(name = "test_cases", joinColumns = @JoinColumn(name = "problem_id"))
     private List<TestCase> testCases;
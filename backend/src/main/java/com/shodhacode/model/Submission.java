@@ -4,18 +4,30 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "submissions")
+// Same indexes as the Flyway migrations, so the create-drop schema of development matches
+@Table(name = "submissions", indexes = {
+        // Leaderboard: leading columns select a contest's accepts, the rest cover the solve query
+        @Index(name = "idx_submissions_contest_status_user",
+                columnList = "contest_id, status, user_name, problem_id, created_at, run_time"),
+        @Index(name = "idx_submissions_problem_created", columnList = "problem_id, created_at"),
+        // Judge queue: pending work and expired leases, and the claims of one judge
+        @Index(name = "idx_submissions_status_lease", columnList = "status, lease_expires_at"),
+        @Index(name = "idx_submissions_claimed_by", columnList = "claimed_by")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Submission {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: ids come from memory between sequence calls, and inserts can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submission_seq")
+    @SequenceGenerator(name = "submission_seq", sequenceName = "submission_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -25,9 +37,15 @@ public class Submission {
     @JoinColumn(name = "problem_id", nullable = false)
     private Problem problem;
     
-    @Lob
-    @Column(nullable = false)
-    private String code;
+    // Copy of problem.contest.id, so contest queries stay on this table and its indexes
+    @Column(name = "contest_id", nullable = false)
+    private Long contestId;
+    
+    // Loaded only by the judge, status reads stay on this table
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST, optional = false)
+    @JoinColumn(name = "source_id", nullable = false)
+    @ToString.Exclude
+    private SubmissionSource source;
     
     @Column(nullable = false)
     private String language;
@@ -48,6 +66,10 @@ public class Submission {
     private Long runTime; // in milliseconds
     private Long memoryUsed; // in KB
     
+    // Lease of the judge worker running it: set by the claim, cleared with the verdict
+    private String claimedBy;
+    private LocalDateTime leaseExpiresAt;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,73 @@
+package com.shodhacode.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Source code of a submission, kept out of the submissions table so status reads never touch it.
+ * Large sources are stored gzip-compressed.
+ */
+@Entity
+@Table(name = "submission_sources")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionSource {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submission_source_seq")
+    @SequenceGenerator(name = "submission_source_seq", sequenceName = "submission_source_seq", allocationSize = 50)
+    private Long id;
+
+    @Lob
+    @Column(nullable = false)
+    @ToString.Exclude
+    private byte[] content;
+
+    @Column(nullable = false)
+    private boolean compressed;
+
+    /**
+     * Encodes the code, compressing it if it is at least {@code compressFromBytes} long. A
+     * negative threshold stores it as is.
+     */
+    public static SubmissionSource of(String code, long compressFromBytes) {
+        byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+        if (compressFromBytes < 0 || bytes.length < compressFromBytes) {
+            return new SubmissionSource(null, bytes, false);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Tiny or random sources can grow, those are kept as they are
+        byte[] packed = buffer.toByteArray();
+        return packed.length < bytes.length
+                ? new SubmissionSource(null, packed, true)
+                : new SubmissionSource(null, bytes, false);
+    }
+
+    public String getCode() {
+        if (!compressed) {
+            return new String(content, StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -7,5 +7,7 @@ public enum SubmissionStatus {
     WRONG_ANSWER,
     RUNTIME_ERROR,
     TIMED_OUT,
+    MEMORY_LIMIT_EXCEEDED,
+    OUTPUT_LIMIT_EXCEEDED,
     COMPILATION_ERROR
 }
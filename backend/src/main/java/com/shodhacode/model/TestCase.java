@@ -6,15 +6,24 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Input and expected output of a test, by hash and size in the {@link com.shodhacode.storage.TestDataStore}.
+ */
 @Embeddable
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class TestCase {
     
-    @Column(columnDefinition = "TEXT")
-    private String input;
+    @Column(length = 64, nullable = false)
+    private String inputHash;
     
-    @Column(columnDefinition = "TEXT")
-    private String expectedOutput;
+    @Column(nullable = false)
+    private long inputSize;
+    
+    @Column(length = 64, nullable = false)
+    private String outputHash;
+    
+    @Column(nullable = false)
+    private long outputSize;
 }
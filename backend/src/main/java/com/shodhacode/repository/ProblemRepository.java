@@ -13,6 +13,9 @@ import java.util.Optional;
 public interface ProblemRepository extends JpaRepository<Problem, Long> {
     List<Problem> findByContestId(Long contestId);
     
+    @Query("SELECT p FROM Problem p JOIN FETCH p.contest WHERE p.id = :id")
+    Optional<Problem> findByIdWithContest(@Param("id") Long id);
+    
     @Query("SELECT p FROM Problem p LEFT JOIN FETCH p.testCases WHERE p.id = :id")
     Optional<Problem> findByIdWithTestCases(@Param("id") Long id);
 }
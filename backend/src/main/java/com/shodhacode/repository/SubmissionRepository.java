@@ -1,22 +1,114 @@
 package com.shodhacode.repository;
 
+import com.shodhacode.dto.SubmissionDTO;
 import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
-    List<Submission> findTop100ByProblemContestIdOrderByCreatedAtDesc(Long contestId);
+    // Status reads: the submission row alone, without its problem or source
+    @Query("SELECT new com.shodhacode.dto.SubmissionDTO(s.id, s.userName, s.problem.id, s.language, s.status, " +
+           "s.result, s.createdAt, s.updatedAt, s.runTime, s.memoryUsed) FROM Submission s WHERE s.id = :id")
+    Optional<SubmissionDTO> findDtoById(Long id);
     
-    @Query("SELECT s FROM Submission s WHERE s.problem.contest.id = :contestId AND s.status = 'ACCEPTED'")
+    // Everything the judge reads: problem and contest for its events, and the source
+    @Query("SELECT s FROM Submission s JOIN FETCH s.problem p JOIN FETCH p.contest JOIN FETCH s.source WHERE s.id = :id")
+    Optional<Submission> findByIdForJudging(Long id);
+    
+    // Judge queue, see JudgeQueue. Rows of waiting work: id, userName, contest
+    @Query("SELECT s.id, s.userName, p.contest FROM Submission s JOIN s.problem p " +
+           "WHERE s.status = com.shodhacode.model.SubmissionStatus.PENDING ORDER BY s.id")
+    List<Object[]> findPendingWork();
+    
+    // Status writes, see SubmissionWriter. Locked so that no claim changes hands between the check
+    // of who holds a submission and the write of its verdict
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s WHERE s.id IN :ids")
+    List<Submission> findAllByIdForUpdate(Collection<Long> ids);
+    
+    // Rows of claims whose lease ran out: id, userName, contest, claimedBy
+    @Query("SELECT s.id, s.userName, p.contest, s.claimedBy FROM Submission s JOIN s.problem p " +
+           "WHERE s.status = com.shodhacode.model.SubmissionStatus.RUNNING AND s.leaseExpiresAt < :now ORDER BY s.id")
+    List<Object[]> findExpiredClaims(LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.shodhacode.model.SubmissionStatus.RUNNING, " +
+           "s.claimedBy = :workerId, s.leaseExpiresAt = :leaseExpiresAt, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.status = com.shodhacode.model.SubmissionStatus.PENDING")
+    int claim(Long id, String workerId, LocalDateTime leaseExpiresAt, LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE s.id IN :ids AND s.claimedBy = :workerId AND s.status = com.shodhacode.model.SubmissionStatus.RUNNING")
+    int renewClaims(String workerId, Collection<Long> ids, LocalDateTime leaseExpiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.shodhacode.model.SubmissionStatus.PENDING, " +
+           "s.claimedBy = NULL, s.leaseExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.claimedBy = :workerId AND s.status = com.shodhacode.model.SubmissionStatus.RUNNING")
+    int releaseClaim(Long id, String workerId, LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.shodhacode.model.SubmissionStatus.PENDING, " +
+           "s.claimedBy = NULL, s.leaseExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.status = com.shodhacode.model.SubmissionStatus.RUNNING AND s.leaseExpiresAt < :now")
+    int releaseExpiredClaim(Long id, LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.shodhacode.model.SubmissionStatus.PENDING, " +
+           "s.claimedBy = NULL, s.leaseExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.claimedBy = :workerId AND s.status = com.shodhacode.model.SubmissionStatus.RUNNING")
+    int releaseClaims(String workerId, LocalDateTime now);
+    
+    // Rejudge candidates: id, userName, status
+    @Query("SELECT s.id, s.userName, s.status FROM Submission s " +
+           "WHERE s.contestId = :contestId AND s.status IN :statuses ORDER BY s.id")
+    List<Object[]> findRejudgeCandidatesByContestId(Long contestId, Collection<SubmissionStatus> statuses);
+    
+    @Query("SELECT s.id, s.userName, s.status FROM Submission s " +
+           "WHERE s.problem.id = :problemId AND s.status IN :statuses ORDER BY s.id")
+    List<Object[]> findRejudgeCandidatesByProblemId(Long problemId, Collection<SubmissionStatus> statuses);
+    
+    // Back in the judge queue if it still has the verdict it was chosen with; run time and memory
+    // stay until the new verdict replaces them
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.shodhacode.model.SubmissionStatus.PENDING, s.result = NULL, " +
+           "s.updatedAt = :now WHERE s.id = :id AND s.status = :status")
+    int resetForRejudge(Long id, SubmissionStatus status, LocalDateTime now);
+    
+    List<Submission> findTop100ByContestIdOrderByCreatedAtDesc(Long contestId);
+    
+    @Query("SELECT s FROM Submission s WHERE s.contestId = :contestId AND s.status = 'ACCEPTED'")
     List<Submission> findAcceptedSubmissionsByContestId(Long contestId);
     
-    @Query("SELECT s.userName, COUNT(s) as acceptedCount, MIN(s.runTime) as bestTime " +
-           "FROM Submission s WHERE s.problem.contest.id = :contestId AND s.status = 'ACCEPTED' " +
-           "GROUP BY s.userName ORDER BY acceptedCount DESC, bestTime ASC")
-    List<Object[]> findLeaderboardByContestId(Long contestId);
+    // One row per solved (user, problem): userName, problemId, first accept time, best run time.
+    // Answered from idx_submissions_contest_status_user alone
+    @Query("SELECT s.userName, s.problem.id, MIN(s.createdAt), MIN(s.runTime) " +
+           "FROM Submission s WHERE s.contestId = :contestId AND s.status = 'ACCEPTED' " +
+           "GROUP BY s.userName, s.problem.id")
+    List<Object[]> findSolvesByContestId(Long contestId);
+    
+    // Every submission of one user to one problem: id, status, createdAt, runTime
+    @Query("SELECT s.id, s.status, s.createdAt, s.runTime FROM Submission s " +
+           "WHERE s.contestId = :contestId AND s.userName = :userName AND s.problem.id = :problemId")
+    List<Object[]> findVerdictsOfUserProblem(Long contestId, String userName, Long problemId);
 }
@@ -1,23 +1,25 @@
 package com.shodhacode.service;
 
+import com.shodhacode.config.JudgeProperties;
 import com.shodhacode.dto.ContestDTO;
-import com.shodhacode.dto.LeaderboardEntryDTO;
 import com.shodhacode.dto.ProblemDTO;
+import com.shodhacode.judge.RunLimits;
 import com.shodhacode.model.Contest;
 import com.shodhacode.repository.ContestRepository;
-import com.shodhacode.repository.SubmissionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Profile("!agent")
 @RequiredArgsConstructor
 public class ContestService {
     
     private final ContestRepository contestRepository;
-    private final SubmissionRepository submissionRepository;
+    private final JudgeProperties judgeProperties;
     
     public ContestDTO getContest(Long contestId) {
         Contest contest = contestRepository.findById(contestId)
@@ -37,6 +39,9 @@ public class ContestService {
                     problemDTO.setId(problem.getId());
                     problemDTO.setTitle(problem.getTitle());
                     problemDTO.setStatement(problem.getStatement());
+                    RunLimits limits = RunLimits.forProblem(problem, judgeProperties);
+                    problemDTO.setTimeLimitMillis(limits.getTimeLimitMillis());
+                    problemDTO.setMemoryLimitMb(limits.getMemoryLimitKb() / 1024);
                     return problemDTO;
                 })
                 .collect(Collectors.toList());
@@ -44,18 +49,4 @@ public class ContestService {
         dto.setProblems(problemDTOs);
         return dto;
     }
-    
-    public List<LeaderboardEntryDTO> getLeaderboard(Long contestId) {
-        List<Object[]> results = submissionRepository.findLeaderboardByContestId(contestId);
-        
-        return results.stream()
-                .map(result -> {
-                    LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
-                    entry.setUserName((String) result[0]);
-                    entry.setAcceptedCount((Long) result[1]);
-                    entry.setBestTimeMillis((Long) result[2]);
-                    return entry;
-                })
-                .collect(Collectors.toList());
-    }
 }
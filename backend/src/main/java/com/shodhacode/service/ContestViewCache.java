@@ -0,0 +1,90 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized contest pages, kept both as plain JSON and gzip-compressed, so serving a contest
+ * costs a map lookup however many contestants open it at once. Entries are dropped whenever the
+ * contest or one of its problems is written.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class ContestViewCache {
+
+    private final ContestService contestService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, ContestView> views = new ConcurrentHashMap<>();
+
+    public ContestView get(Long contestId) {
+        // Concurrent misses for the same contest wait for a single build
+        return views.computeIfAbsent(contestId, this::build);
+    }
+
+    public void evict(Long contestId) {
+        if (views.remove(contestId) != null) {
+            log.debug("Evicted cached view of contest {}", contestId);
+        }
+    }
+
+    private ContestView build(Long contestId) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(contestService.getContest(contestId));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize contest " + contestId, e);
+        }
+        String eTag = eTag(json);
+        return new ContestView(json, gzip(json), eTag, gzipETag(eTag));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String eTag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // A strong validator names one exact body, so the compressed bytes get a tag of their own
+    private static String gzipETag(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + "-gz\"";
+    }
+
+    @Value
+    public static class ContestView {
+        byte[] json;
+        byte[] gzip;
+        String eTag;
+        String gzipETag;
+    }
+}
@@ -5,24 +5,29 @@ import com.shodhacode.model.Problem;
 import com.shodhacode.model.TestCase;
 import com.shodhacode.repository.ContestRepository;
 import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.storage.TestDataStore;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
+@Profile("!agent")
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializationService {
 
     private final ContestRepository contestRepository;
     private final ProblemRepository problemRepository;
+    private final TestDataStore testDataStore;
 
     @PostConstruct
-    public void initializeData() {
+    public void initializeData() throws IOException {
         log.info("Initializing sample data...");
         
         // Check if data already exists
@@ -46,20 +51,24 @@ public class DataInitializationService {
         problem1.setTitle("Sum Two Numbers");
         problem1.setStatement("Given two integers a and b, output their sum.");
         problem1.setContest(savedContest);
+        problem1.setTimeLimitMillis(1000L);
+        problem1.setMemoryLimitMb(256);
         problem1.setTestCases(List.of(
-            new TestCase("2 3", "5"),
-            new TestCase("10 20", "30"),
-            new TestCase("-5 3", "-2")
+            testCase("2 3", "5"),
+            testCase("10 20", "30"),
+            testCase("-5 3", "-2")
         ));
         
         Problem problem2 = new Problem();
         problem2.setTitle("Echo Input");
         problem2.setStatement("Read a line of input and output it exactly as given.");
         problem2.setContest(savedContest);
+        problem2.setTimeLimitMillis(1000L);
+        problem2.setMemoryLimitMb(256);
         problem2.setTestCases(List.of(
-            new TestCase("Hello World", "Hello World"),
-            new TestCase("Shodh-a-Code", "Shodh-a-Code"),
-            new TestCase("123", "123")
+            testCase("Hello World", "Hello World"),
+            testCase("Shodh-a-Code", "Shodh-a-Code"),
+            testCase("123", "123")
         ));
 
         problemRepository.save(problem1);
@@ -73,4 +82,10 @@ public class DataInitializationService {
         log.info("Created {} problems for contest", 2);
         log.info("Data initialization completed");
     }
+
+    private TestCase testCase(String input, String expectedOutput) throws IOException {
+        TestDataStore.StoredData in = testDataStore.put(input);
+        TestDataStore.StoredData out = testDataStore.put(expectedOutput);
+        return new TestCase(in.getHash(), in.getSize(), out.getHash(), out.getSize());
+    }
 }
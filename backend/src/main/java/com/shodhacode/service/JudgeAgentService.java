@@ -0,0 +1,107 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeProblemDTO;
+import com.shodhacode.dto.JudgeTaskDTO;
+import com.shodhacode.dto.VerdictReportDTO;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The backend's side of the agent protocol. Agents claim submissions in batches, keep their
+ * claims alive with heartbeats listing the submissions they still hold, hand back the ones they
+ * cannot judge and report a verdict per submission; claims and leases are the same as for the
+ * judges inside the backend.
+ */
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeAgentService {
+
+    // Caps how long a claim request holds a request thread
+    private static final Duration MAX_CLAIM_WAIT = Duration.ofSeconds(30);
+
+    private final SubmissionScheduler submissionScheduler;
+    private final JudgeQueue judgeQueue;
+    private final SubmissionRepository submissionRepository;
+    private final ProblemRepository problemRepository;
+    private final SubmissionWriter submissionWriter;
+    private final VerdictRecorder verdictRecorder;
+
+    /**
+     * Claims up to {@code max} submissions for the agent, waiting up to {@code wait} for the
+     * first one. Returns an empty list if none arrived in time.
+     */
+    public List<JudgeTaskDTO> claim(String agentId, int max, Duration wait) throws InterruptedException {
+        List<JudgeTaskDTO> tasks = new ArrayList<>();
+        Long submissionId = submissionScheduler.poll(wait.compareTo(MAX_CLAIM_WAIT) > 0 ? MAX_CLAIM_WAIT : wait);
+        while (submissionId != null) {
+            Optional<Submission> claimed = judgeQueue.claim(submissionId, agentId);
+            if (claimed.isPresent()) {
+                Submission submission = claimed.get();
+                verdictRecorder.started(submission);
+                tasks.add(new JudgeTaskDTO(submission.getId(), submission.getUserName(),
+                        submission.getProblem().getId(), submission.getProblem().getVersion(),
+                        submission.getLanguage(), submission.getSource().getCode(), submission.getCreatedAt()));
+            }
+            submissionId = tasks.size() < max ? submissionScheduler.poll() : null;
+        }
+        if (!tasks.isEmpty()) {
+            log.info("Agent {} claimed {} submissions", agentId, tasks.size());
+        }
+        return tasks;
+    }
+
+    public void heartbeat(String agentId, List<Long> submissionIds) {
+        judgeQueue.renew(agentId, submissionIds);
+    }
+
+    public void release(String agentId, Long submissionId) {
+        submissionRepository.findByIdForJudging(submissionId)
+                .ifPresent(submission -> judgeQueue.release(submission, agentId));
+    }
+
+    public JudgeProblemDTO getProblem(Long problemId) {
+        Problem problem = problemRepository.findByIdWithTestCases(problemId)
+                .orElseThrow(() -> new RuntimeException("Problem not found"));
+        return new JudgeProblemDTO(problem.getId(), problem.getVersion(), problem.getTimeLimitMillis(),
+                problem.getMemoryLimitMb(), problem.getTestCases());
+    }
+
+    public void reportVerdict(String agentId, Long submissionId, VerdictReportDTO report) {
+        if (report.getStatus() == null || report.getStatus() == SubmissionStatus.PENDING
+                || report.getStatus() == SubmissionStatus.RUNNING) {
+            throw new IllegalArgumentException("A verdict is required, got " + report.getStatus());
+        }
+        Submission submission = submissionRepository.findByIdForJudging(submissionId)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        // A verdict waiting to be written means this submission was already reported
+        if (submission.getStatus() != SubmissionStatus.RUNNING || !agentId.equals(submission.getClaimedBy())
+                || submissionWriter.pendingUpdate(submissionId).isPresent()) {
+            throw new JudgeClaimLostException("Submission " + submissionId + " is not claimed by " + agentId);
+        }
+
+        submission.setStatus(report.getStatus());
+        submission.setResult(report.getResult());
+        submission.setRunTime(report.getRunTime());
+        submission.setMemoryUsed(report.getMemoryUsed());
+        // Only a verdict on the current test data may answer future resubmissions
+        Problem problem = submission.getProblem();
+        boolean judged = report.isJudged() && Objects.equals(problem.getVersion(), report.getProblemVersion());
+        verdictRecorder.finished(new JudgeTask(submission, submission.getSource().getCode(), problem), judged);
+        log.info("Agent {} judged submission {}: {}", agentId, submissionId, report.getStatus());
+    }
+}
@@ -0,0 +1,14 @@
+package com.shodhacode.service;
+
+/**
+ * Thrown when an agent reports on a submission it no longer holds, because its lease expired and
+ * the submission was handed to another judge or already has a verdict.
+ */
+public class JudgeClaimLostException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JudgeClaimLostException(String message) {
+        super(message);
+    }
+}
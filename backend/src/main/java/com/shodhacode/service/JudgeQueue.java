@@ -0,0 +1,169 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.model.Contest;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The submissions table as the durable record of judge work. A judge claims a PENDING submission
+ * with a conditional update that moves it to RUNNING under a lease held by this backend; the lease
+ * is renewed while a judge works on the submission and dropped when the verdict is written or the
+ * judge hands the submission back. The
+ * {@link SubmissionScheduler} only decides the order: on startup it is refilled from the table,
+ * and submissions whose claim expired are handed back to it.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeQueue {
+
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionScheduler submissionScheduler;
+    private final JudgeProperties judgeProperties;
+
+    private final ScheduledExecutorService leaseKeeper = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("judge-lease-"));
+    // Claims of this backend's own judges, the ones its lease keeper renews
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private String workerId;
+    private Duration leaseDuration;
+
+    @PostConstruct
+    public void start() {
+        workerId = judgeProperties.getQueue().resolveWorkerId();
+        leaseDuration = judgeProperties.getQueue().getLeaseDuration();
+        long period = Math.max(1, leaseDuration.toMillis() / 3);
+        leaseKeeper.scheduleWithFixedDelay(this::maintainLeases, period, period, TimeUnit.MILLISECONDS);
+        log.info("Judge queue claims submissions as {} with {} leases", workerId, leaseDuration);
+    }
+
+    @PreDestroy
+    public void stop() {
+        leaseKeeper.shutdownNow();
+    }
+
+    /**
+     * Resumes the work a previous run of this backend left behind. Its claims are released
+     * straight away, since nothing here can still be working on them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int interrupted = submissionRepository.releaseClaims(workerId, LocalDateTime.now());
+        List<Object[]> pending = submissionRepository.findPendingWork();
+        for (Object[] row : pending) {
+            enqueue(row);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Resumed {} unfinished submissions, {} of them interrupted while running", pending.size(), interrupted);
+        }
+    }
+
+    /**
+     * Takes the submission for this backend to judge, loaded with its problem, contest and
+     * source. Empty if it is no longer waiting, for instance because it was queued twice or
+     * another judge got to it first.
+     */
+    public Optional<Submission> claim(long submissionId) {
+        Optional<Submission> claimed = claim(submissionId, workerId);
+        claimed.ifPresent(submission -> held.add(submission.getId()));
+        return claimed;
+    }
+
+    /**
+     * Takes the submission for the given judge, which renews the claim through {@link #renew}.
+     */
+    public Optional<Submission> claim(long submissionId, String claimant) {
+        Submission submission = submissionRepository.findByIdForJudging(submissionId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = now.plus(leaseDuration);
+        if (submission == null || submissionRepository.claim(submissionId, claimant, leaseExpiresAt, now) == 0) {
+            submissionScheduler.finished(submissionId);
+            return Optional.empty();
+        }
+        submission.setStatus(SubmissionStatus.RUNNING);
+        submission.setClaimedBy(claimant);
+        submission.setLeaseExpiresAt(leaseExpiresAt);
+        return Optional.of(submission);
+    }
+
+    /**
+     * Renews the claims the judge still holds. Claims it no longer mentions lapse, and their
+     * submissions are judged again.
+     */
+    public void renew(String claimant, Collection<Long> submissionIds) {
+        if (!submissionIds.isEmpty()) {
+            submissionRepository.renewClaims(claimant, submissionIds, LocalDateTime.now().plus(leaseDuration));
+        }
+    }
+
+    /**
+     * A verdict for the submission is on its way to the database, so this backend stops renewing
+     * its claim.
+     */
+    public void judged(long submissionId) {
+        held.remove(submissionId);
+    }
+
+    public void release(Submission submission) {
+        release(submission, workerId);
+    }
+
+    /**
+     * Hands a claimed submission back unjudged, for instance because its judge could not prepare
+     * it, and queues it again. Nothing happens if the claimant no longer holds it.
+     */
+    public void release(Submission submission, String claimant) {
+        held.remove(submission.getId());
+        if (submissionRepository.releaseClaim(submission.getId(), claimant, LocalDateTime.now()) == 1) {
+            log.info("{} handed submission {} back", claimant, submission.getId());
+            submissionScheduler.enqueue(submission.getId(), submission.getUserName(),
+                    SubmissionScheduler.Priority.of(submission.getProblem().getContest()));
+        } else {
+            submissionScheduler.finished(submission.getId());
+        }
+    }
+
+    private void maintainLeases() {
+        try {
+            renew(workerId, List.copyOf(held));
+            LocalDateTime now = LocalDateTime.now();
+            for (Object[] row : submissionRepository.findExpiredClaims(now)) {
+                Long submissionId = (Long) row[0];
+                // Conditional, so of several backends noticing the same expiry only one requeues it
+                if (submissionRepository.releaseExpiredClaim(submissionId, now) == 1) {
+                    log.warn("Claim of {} on submission {} expired, judging it again", row[3], submissionId);
+                    enqueue(row);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to maintain judge leases", e);
+        }
+    }
+
+    private void enqueue(Object[] row) {
+        submissionScheduler.enqueue((Long) row[0], (String) row[1], SubmissionScheduler.Priority.of((Contest) row[2]));
+    }
+}
@@ -0,0 +1,16 @@
+package com.shodhacode.service;
+
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.Submission;
+import lombok.Value;
+
+/**
+ * A claimed submission with everything needed to judge it. The judge records its verdict on the
+ * submission; the problem carries the test cases and the version they belong to.
+ */
+@Value
+public class JudgeTask {
+    Submission submission;
+    String code;
+    Problem problem;
+}
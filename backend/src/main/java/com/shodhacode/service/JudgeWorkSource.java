@@ -0,0 +1,30 @@
+package com.shodhacode.service;
+
+/**
+ * Where a {@link JudgeWorker} gets its submissions and where their verdicts go: the database in
+ * the backend, the backend's judge API in an agent.
+ */
+public interface JudgeWorkSource {
+
+    /**
+     * Waits for the next submission, already claimed for this judge. Sources that claim in
+     * batches may claim up to {@code batchSize} at once.
+     */
+    JudgeTask take(int batchSize) throws InterruptedException;
+
+    /**
+     * Judging has started and the submission is RUNNING.
+     */
+    void started(JudgeTask task);
+
+    /**
+     * Judging ended with the status recorded on the submission. {@code judged} is false when the
+     * status comes from a judge failure rather than the submission's own compile and test runs.
+     */
+    void finished(JudgeTask task, boolean judged);
+
+    /**
+     * Hands a submission from {@link #take} back unjudged, so that another judge takes it.
+     */
+    void release(JudgeTask task);
+}
@@ -1,235 +1,386 @@
 package com.shodhacode.service;
 
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.judge.CompileResult;
+import com.shodhacode.judge.JudgeResult;
+import com.shodhacode.judge.PeakUsage;
+import com.shodhacode.judge.Language;
+import com.shodhacode.judge.ResourceUsage;
+import com.shodhacode.judge.RunLimits;
+import com.shodhacode.judge.RunCancellation;
+import com.shodhacode.judge.SourceCompiler;
+import com.shodhacode.judge.TestCaseRunner;
+import com.shodhacode.judge.TestInputCache;
+import com.shodhacode.judge.WorkspacePool;
+import com.shodhacode.metrics.JudgeMetrics;
+import com.shodhacode.metrics.JudgePhase;
 import com.shodhacode.model.Submission;
 import com.shodhacode.model.SubmissionStatus;
 import com.shodhacode.model.TestCase;
 import com.shodhacode.model.Problem;
-import com.shodhacode.repository.SubmissionRepository;
-import com.shodhacode.repository.ProblemRepository;
+import io.micrometer.core.instrument.LongTaskTimer;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import jakarta.annotation.PostConstruct;
-import java.io.*;
+import jakarta.annotation.PreDestroy;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
+@ConditionalOnProperty(prefix = "judge", name = "enabled", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class JudgeWorker {
     
-    private final SubmissionService submissionService;
-    private final SubmissionRepository submissionRepository;
-    private final ProblemRepository problemRepository;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    private final JudgeWorkSource workSource;
+    private final JudgeProperties judgeProperties;
+    private final SourceCompiler sourceCompiler;
+    private final TestCaseRunner testCaseRunner;
+    private final WorkspacePool workspacePool;
+    private final TestInputCache testInputCache;
+    private final JudgeMetrics judgeMetrics;
+    private final Environment environment;
+    
+    // One lane per language, each sized to that language's concurrency cap
+    private final Map<Language, ExecutorService> lanes = new EnumMap<>(Language.class);
+    // Submissions handed to each lane and not yet done, running or waiting for a lane thread
+    private final Map<Language, AtomicInteger> laneLoads = new EnumMap<>(Language.class);
+    private ExecutorService dispatcher;
+    private Semaphore judgeSlots;
+    // Shared run slots for test cases fanned out in parallel mode
+    private ExecutorService testExecutor;
     
     @PostConstruct
     public void startWorker() {
-        log.info("Starting JudgeWorker...");
-        executorService.submit(this::processSubmissions);
+        int workers = judgeProperties.resolveWorkers();
+        // With spring.threads.virtual.enabled on Java 21 the judges wait for processes, the
+        // database and each other on virtual threads; ProcessSlots bounds what actually runs
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        dispatcher = Executors.newSingleThreadExecutor(threadFactory("judge-dispatcher-", virtual));
+        judgeSlots = new Semaphore(workers, true);
+        for (Language language : Language.values()) {
+            int limit = judgeProperties.resolveLanguageLimit(language);
+            lanes.put(language, Executors.newFixedThreadPool(limit,
+                    threadFactory("judge-" + language.getKey() + "-", virtual)));
+            laneLoads.put(language, new AtomicInteger());
+            log.info("Judge lane {} allows {} concurrent submissions", language.getKey(), limit);
+        }
+        
+        if (judgeProperties.isParallelTests()) {
+            int runSlots = judgeProperties.resolveRunSlots();
+            testExecutor = Executors.newFixedThreadPool(runSlots, threadFactory("judge-test-", virtual));
+            log.info("Parallel test execution enabled with {} run slots", runSlots);
+        }
+        
+        log.info("Starting JudgeWorker with {} workers on {} threads...", workers, virtual ? "virtual" : "platform");
+        dispatcher.submit(this::processSubmissions);
+    }
+    
+    @PreDestroy
+    public void stopWorker() {
+        dispatcher.shutdownNow();
+        lanes.values().forEach(ExecutorService::shutdownNow);
+        if (testExecutor != null) {
+            testExecutor.shutdownNow();
+        }
+    }
+    
+    private static ThreadFactory threadFactory(String prefix, boolean virtual) {
+        return virtual ? new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(prefix);
     }
     
     private void processSubmissions() {
-        BlockingQueue<Submission> queue = submissionService.getSubmissionQueue();
-        
         while (true) {
             try {
-                Submission submission = queue.take();
-                log.info("Processing submission: {}", submission.getId());
-                processSubmission(submission);
+                // A submission is claimed only once a slot is free, so under load the scheduler
+                // rather than the lane queues decides the judging order. Lanes still cap each
+                // language, the slots cap the pool as a whole.
+                judgeSlots.acquire();
+                JudgeTask task;
+                try {
+                    task = workSource.take(judgeSlots.availablePermits() + 1);
+                } catch (InterruptedException | RuntimeException e) {
+                    judgeSlots.release();
+                    throw e;
+                }
+                dispatch(task);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                log.error("JudgeWorker interrupted", e);
+                log.info("JudgeWorker dispatcher stopped");
                 break;
             } catch (Exception e) {
-                log.error("Error processing submission", e);
+                log.error("Error dispatching submission", e);
+            }
+        }
+    }
+    
+    /**
+     * Hands the task, which holds a judge slot, to its language's lane. When the lane has no free
+     * thread the slot is given back until the task's turn comes, so a backlog in one language
+     * never keeps the others from the slots.
+     */
+    private void dispatch(JudgeTask task) {
+        boolean holdsSlot = true;
+        AtomicInteger load = null;
+        try {
+            Language language = Language.fromName(task.getSubmission().getLanguage());
+            load = laneLoads.get(language);
+            if (load.incrementAndGet() > judgeProperties.resolveLanguageLimit(language)) {
+                judgeSlots.release();
+                holdsSlot = false;
+            }
+            boolean slotTaken = holdsSlot;
+            lanes.get(language).execute(() -> judge(task, language, slotTaken));
+        } catch (RuntimeException e) {
+            if (load != null) {
+                load.decrementAndGet();
             }
+            if (holdsSlot) {
+                judgeSlots.release();
+            }
+            workSource.release(task);
+            throw e;
+        }
+    }
+    
+    private void judge(JudgeTask task, Language language, boolean holdsSlot) {
+        try {
+            if (!holdsSlot) {
+                judgeSlots.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            laneLoads.get(language).decrementAndGet();
+            workSource.release(task);
+            return;
+        }
+        LongTaskTimer.Sample active = judgeMetrics.startSubmission();
+        try {
+            Submission submission = task.getSubmission();
+            log.info("Processing submission: {}", submission.getId());
+            judgeMetrics.recordQueueWait(submission.getId(), language,
+                    Duration.between(submission.getCreatedAt(), LocalDateTime.now()));
+            processSubmission(task);
+        } catch (Exception e) {
+            log.error("Error processing submission", e);
+        } finally {
+            active.stop();
+            laneLoads.get(language).decrementAndGet();
+            judgeSlots.release();
         }
     }
     
-    @Transactional
-    private void processSubmission(Submission submission) {
+    private void processSubmission(JudgeTask task) {
+        Submission submission = task.getSubmission();
+        // Whether the status comes from the submission's own compile and runs
+        boolean judged = false;
         try {
-            // Set status to RUNNING
-            submission.setStatus(SubmissionStatus.RUNNING);
-            submissionRepository.save(submission);
+            workSource.started(task);
             
-            // Create temporary directory
-            Path tempDir = createTempDirectory(submission.getId());
+            // Borrow a workspace, it is emptied again when handed back
+            Path workDir = workspacePool.acquire();
             
             try {
                 // Write code to file
-                String fileName = getFileName(submission.getLanguage());
-                Path codeFile = tempDir.resolve(fileName);
-                Files.write(codeFile, submission.getCode().getBytes());
+                Language language = Language.fromName(submission.getLanguage());
+                Path codeFile = workDir.resolve(language.getSourceFileName());
+                Files.write(codeFile, task.getCode().getBytes());
+                Problem problem = task.getProblem();
                 
-                // Fetch problem with test cases to avoid lazy initialization
-                Problem problem = problemRepository.findByIdWithTestCases(submission.getProblem().getId())
-                        .orElseThrow(() -> new RuntimeException("Problem not found"));
-                List<TestCase> testCases = problem.getTestCases();
-                boolean allPassed = true;
-                String result = "";
+                // Compile once, every test case runs the same artifact
+                long compileStart = System.nanoTime();
+                CompileResult compileResult = sourceCompiler.compile(workDir, language);
+                judgeMetrics.record(JudgePhase.COMPILE, submission.getId(), language,
+                        compileResult.isSuccess() ? "success" : "failure", System.nanoTime() - compileStart);
+                if (!compileResult.isSuccess()) {
+                    submission.setStatus(SubmissionStatus.COMPILATION_ERROR);
+                    submission.setResult("Compilation error: " + compileResult.getDiagnostics());
+                    // A compiler that ran out of time under load may well finish next time
+                    judged = !compileResult.isTimedOut();
+                    return;
+                }
                 
-                for (int i = 0; i < testCases.size(); i++) {
-                    TestCase testCase = testCases.get(i);
-                    JudgeResult judgeResult = runTestCase(tempDir, fileName, testCase, submission.getLanguage());
-                    
-                    if (!judgeResult.isSuccess()) {
-                        allPassed = false;
-                        result = judgeResult.getError();
-                        break;
-                    }
-                    
-                    if (!judgeResult.getOutput().trim().equals(testCase.getExpectedOutput().trim())) {
-                        allPassed = false;
-                        result = "Wrong Answer on test case " + (i + 1);
-                        break;
-                    }
+                List<TestCase> testCases = problem.getTestCases();
+                RunLimits limits = RunLimits.forProblem(problem, judgeProperties);
+                PeakUsage peakUsage = new PeakUsage();
+                TestFailure failure;
+                // Held until the runs are over, so a newer problem version cannot delete them meanwhile
+                try (TestInputCache.Inputs inputs = testInputCache.acquire(problem)) {
+                    List<Path> inputFiles = inputs.getFiles();
+                    failure = judgeProperties.isParallelTests()
+                            ? runTestCasesInParallel(submission, workDir, testCases, inputFiles, language, limits, peakUsage)
+                            : runTestCasesInOrder(submission, workDir, testCases, inputFiles, language, limits, peakUsage);
                 }
                 
+                // Worst case over the test runs: CPU milliseconds and KB resident
+                submission.setRunTime(peakUsage.getCpuTimeMillis());
+                submission.setMemoryUsed(peakUsage.getPeakMemoryKb());
+                
                 // Update submission result
-                if (allPassed) {
+                if (failure == null) {
                     submission.setStatus(SubmissionStatus.ACCEPTED);
                     submission.setResult("All test cases passed");
                 } else {
-                    submission.setStatus(SubmissionStatus.WRONG_ANSWER);
-                    submission.setResult(result);
+                    submission.setStatus(failure.getStatus());
+                    submission.setResult(failure.getMessage());
                 }
+                judged = true;
                 
             } finally {
-                // Clean up temporary directory
-                deleteDirectory(tempDir);
+                workspacePool.release(workDir);
             }
             
         } catch (Exception e) {
             log.error("Error processing submission {}: {}", submission.getId(), e.getMessage());
             submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
             submission.setResult("Runtime error: " + e.getMessage());
+        } finally {
+            workSource.finished(task, judged);
+            log.info("Completed processing submission: {} with status: {}", submission.getId(), submission.getStatus());
         }
-        
-        submissionRepository.save(submission);
-        log.info("Completed processing submission: {} with status: {}", submission.getId(), submission.getStatus());
-    }
-    
-    private Path createTempDirectory(Long submissionId) throws IOException {
-        Path tempDir = Paths.get("/tmp/shodhacode/" + submissionId);
-        Files.createDirectories(tempDir);
-        return tempDir;
     }
     
-    private String getFileName(String language) {
-        return switch (language.toLowerCase()) {
-            case "java" -> "Main.java";
-            case "python" -> "main.py";
-            case "cpp", "c++" -> "main.cpp";
-            default -> "main.java";
-        };
+    private TestFailure runTestCasesInOrder(Submission submission, Path workDir, List<TestCase> testCases,
+                                            List<Path> inputs, Language language, RunLimits limits,
+                                            PeakUsage peakUsage) {
+        for (int i = 0; i < testCases.size(); i++) {
+            TestFailure failure = judgeTestCase(submission, workDir, testCases, inputs, i, language, limits,
+                    RunCancellation.none(), peakUsage);
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
     }
     
-    private JudgeResult runTestCase(Path workDir, String fileName, TestCase testCase, String language) {
+    /**
+     * Runs every test case on the shared run slots. Once a test fails, the runs of all later tests
+     * are cancelled; earlier ones keep going, so the verdict is always the first failing test by
+     * index, exactly as in sequential mode.
+     */
+    private TestFailure runTestCasesInParallel(Submission submission, Path workDir, List<TestCase> testCases,
+                                               List<Path> inputs, Language language, RunLimits limits,
+                                               PeakUsage peakUsage) throws InterruptedException {
+        int count = testCases.size();
+        RunCancellation[] cancellations = new RunCancellation[count];
+        TestFailure[] failures = new TestFailure[count];
+        AtomicInteger firstFailure = new AtomicInteger(count);
+        List<Future<?>> runs = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; i++) {
+            cancellations[i] = new RunCancellation();
+        }
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            runs.add(testExecutor.submit(() -> {
+                // A lower-numbered test already failed, so this one cannot change the verdict
+                if (index > firstFailure.get() || cancellations[index].isCancelled()) {
+                    return;
+                }
+                TestFailure failure = judgeTestCase(submission, workDir, testCases, inputs, index, language, limits,
+                        cancellations[index], peakUsage);
+                if (failure == null) {
+                    return;
+                }
+                failures[index] = failure;
+                if (firstFailure.accumulateAndGet(index, Math::min) == index) {
+                    for (int j = index + 1; j < count; j++) {
+                        cancellations[j].cancel();
+                    }
+                }
+            }));
+        }
+        
         try {
-            // Write input to file
-            Path inputFile = workDir.resolve("input.txt");
-            Files.write(inputFile, testCase.getInput().getBytes());
-            
-            // Build execution command
-            List<String> command = buildExecutionCommand(fileName, language);
-            
-            // Execute command
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.directory(workDir.toFile());
-            
-            Process process = pb.start();
-            
-            // Write input to process
-            try (OutputStreamWriter writer = new OutputStreamWriter(process.getOutputStream())) {
-                writer.write(testCase.getInput());
-                writer.flush();
+            for (Future<?> run : runs) {
+                run.get();
             }
-            
-            // Wait for completion with timeout
-            boolean finished = process.waitFor(10, java.util.concurrent.TimeUnit.SECONDS);
-            
-            if (!finished) {
-                process.destroyForcibly();
-                return new JudgeResult(false, "", "Time limit exceeded");
+        } catch (InterruptedException e) {
+            for (RunCancellation cancellation : cancellations) {
+                cancellation.cancel();
             }
-            
-            // Read output
-            String output = readStream(process.getInputStream());
-            String error = readStream(process.getErrorStream());
-            
-            int exitCode = process.exitValue();
-            
-            if (exitCode != 0) {
-                return new JudgeResult(false, output, "Runtime error: " + error);
-            }
-            
-            return new JudgeResult(true, output, "");
-            
-        } catch (Exception e) {
-            return new JudgeResult(false, "", "Execution error: " + e.getMessage());
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Test run failed", e.getCause());
         }
+        
+        int first = firstFailure.get();
+        return first < count ? failures[first] : null;
     }
     
-    private List<String> buildExecutionCommand(String fileName, String language) {
-        return switch (language.toLowerCase()) {
-            case "java" -> List.of("bash", "-c", "javac " + fileName + " && java Main");
-            case "python" -> List.of("python3", fileName);
-            case "cpp", "c++" -> List.of("bash", "-c", "g++ " + fileName + " -o main && ./main");
-            default -> List.of("bash", "-c", "javac " + fileName + " && java Main");
-        };
-    }
-    
-    
-    private String readStream(InputStream stream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
+    private TestFailure judgeTestCase(Submission submission, Path workDir, List<TestCase> testCases, List<Path> inputs,
+                                      int index, Language language, RunLimits limits, RunCancellation cancellation,
+                                      PeakUsage peakUsage) {
+        TestCase testCase = testCases.get(index);
+        LongTaskTimer.Sample run = judgeMetrics.startRun();
+        long runStart = System.nanoTime();
+        JudgeResult judgeResult;
+        try {
+            judgeResult = runTestCase(workDir, testCase, inputs.get(index), index + 1, language, limits, cancellation);
+        } finally {
+            run.stop();
+        }
+        judgeMetrics.record(JudgePhase.EXECUTION, submission.getId(), language, judgeResult.getOutcome(),
+                System.nanoTime() - runStart - judgeResult.getComparisonNanos());
+        if (judgeResult.getComparisonNanos() > 0) {
+            judgeMetrics.record(JudgePhase.COMPARISON, submission.getId(), language, judgeResult.getOutcome(),
+                    judgeResult.getComparisonNanos());
         }
-        return output.toString();
+        ResourceUsage usage = judgeResult.getUsage();
+        peakUsage.record(usage);
+        log.debug("Submission {} test case {} ran in {} ms wall, {} ms CPU, {} KB peak", submission.getId(), index + 1,
+                usage.getWallTimeMillis(), usage.getCpuTimeMillis(), usage.getPeakMemoryKb());
+        
+        int testNumber = index + 1;
+        return switch (judgeResult.getOutcome()) {
+            case PASSED -> null;
+            case WRONG_ANSWER -> new TestFailure(SubmissionStatus.WRONG_ANSWER, "Wrong Answer on test case " + testNumber);
+            case OUTPUT_LIMIT_EXCEEDED -> new TestFailure(SubmissionStatus.OUTPUT_LIMIT_EXCEEDED,
+                    "Output limit exceeded on test case " + testNumber);
+            case TIME_LIMIT_EXCEEDED -> new TestFailure(SubmissionStatus.TIMED_OUT,
+                    "Time limit exceeded on test case " + testNumber);
+            case MEMORY_LIMIT_EXCEEDED -> new TestFailure(SubmissionStatus.MEMORY_LIMIT_EXCEEDED,
+                    "Memory limit exceeded on test case " + testNumber);
+            case RUNTIME_ERROR, EXECUTION_ERROR -> new TestFailure(SubmissionStatus.RUNTIME_ERROR, judgeResult.getError());
+        };
     }
     
-    private void deleteDirectory(Path directory) {
+    private JudgeResult runTestCase(Path workDir, TestCase testCase, Path inputFile, int testNumber, Language language,
+                                    RunLimits limits, RunCancellation cancellation) {
         try {
-            Files.walk(directory)
-                    .sorted((a, b) -> b.compareTo(a)) // Delete files before directories
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            log.warn("Failed to delete: {}", path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            log.warn("Failed to delete directory: {}", directory, e);
+            return testCaseRunner.run(workDir, testCase, inputFile, testNumber, language, limits, cancellation);
+        } catch (Exception e) {
+            return JudgeResult.failed(JudgeResult.Outcome.EXECUTION_ERROR, "Execution error: " + e.getMessage(), ResourceUsage.none());
         }
     }
     
-    private static class JudgeResult {
-        private final boolean success;
-        private final String output;
-        private final String error;
-        
-        public JudgeResult(boolean success, String output, String error) {
-            this.success = success;
-            this.output = output;
-            this.error = error;
-        }
-        
-        public boolean isSuccess() { return success; }
-        public String getOutput() { return output; }
-        public String getError() { return error; }
+    @Value
+    private static class TestFailure {
+        SubmissionStatus status;
+        String message;
     }
 }
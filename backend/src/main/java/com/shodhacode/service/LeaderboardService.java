@@ -0,0 +1,155 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.LeaderboardEntryDTO;
+import com.shodhacode.dto.LeaderboardSnapshotDTO;
+import com.shodhacode.event.SubmissionStatusEvent;
+import com.shodhacode.leaderboard.ContestStandings;
+import com.shodhacode.leaderboard.Standing;
+import com.shodhacode.model.Contest;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an in-memory leaderboard per contest. Each contest is loaded from the database once and
+ * then kept current from submission events, so reading a page or a user's rank never aggregates
+ * over the submissions table.
+ */
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardService {
+
+    private final ContestRepository contestRepository;
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionWriter submissionWriter;
+
+    private final Map<Long, ContestStandings> standingsByContest = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (Contest contest : contestRepository.findAll()) {
+            ContestStandings standings = standingsFor(contest.getId());
+            log.info("Loaded leaderboard for contest {} with {} entries", contest.getId(), standings.size());
+        }
+    }
+
+    @EventListener
+    public void onSubmissionStatus(SubmissionStatusEvent event) {
+        if (event.getStatus() != SubmissionStatus.ACCEPTED || event.getContestId() == null) {
+            return;
+        }
+        standingsFor(event.getContestId())
+                .recordAccept(event.getUserName(), event.getProblemId(), event.getCreatedAt(), event.getRunTime());
+    }
+
+    /**
+     * Rebuilds one user's solve of one problem from their submissions, after a rejudge changed
+     * one of its verdicts. Submissions still waiting for their rejudge count with the verdict
+     * {@code previousVerdicts} gives for them.
+     */
+    public void recomputeSolve(Long contestId, String userName, Long problemId,
+                               Function<Long, SubmissionStatus> previousVerdicts) {
+        ContestStandings standings = standingsFor(contestId);
+        // Live accepts for the same contest wait, so none is lost between the read and the replace
+        synchronized (standings) {
+            LocalDateTime firstAcceptedAt = null;
+            Long bestTimeMillis = null;
+            for (Object[] row : submissionRepository.findVerdictsOfUserProblem(contestId, userName, problemId)) {
+                Long submissionId = (Long) row[0];
+                SubmissionStatus status = (SubmissionStatus) row[1];
+                Long runTime = (Long) row[3];
+                // Verdicts still being written behind are newer than the row
+                Optional<SubmissionUpdate> pending = submissionWriter.pendingUpdate(submissionId);
+                if (pending.isPresent()) {
+                    status = pending.get().getStatus();
+                    runTime = pending.get().getRunTime();
+                }
+                SubmissionStatus previous = previousVerdicts.apply(submissionId);
+                if (previous != null) {
+                    status = previous;
+                }
+                if (status != SubmissionStatus.ACCEPTED) {
+                    continue;
+                }
+                LocalDateTime createdAt = (LocalDateTime) row[2];
+                if (firstAcceptedAt == null || createdAt.isBefore(firstAcceptedAt)) {
+                    firstAcceptedAt = createdAt;
+                }
+                if (runTime != null && (bestTimeMillis == null || runTime < bestTimeMillis)) {
+                    bestTimeMillis = runTime;
+                }
+            }
+            ContestStandings.Solve solve = firstAcceptedAt == null ? null
+                    : new ContestStandings.Solve(firstAcceptedAt, bestTimeMillis);
+            if (standings.replaceSolve(userName, problemId, solve)) {
+                log.debug("Rejudge changed the solve of {} on problem {} to {}", userName, problemId, solve);
+            }
+        }
+    }
+
+    public long getVersion(Long contestId) {
+        return standingsFor(contestId).version();
+    }
+
+    public LeaderboardSnapshotDTO getLeaderboard(Long contestId, int offset, int limit) {
+        return convertToDTO(standingsFor(contestId).page(offset, limit));
+    }
+
+    public LeaderboardSnapshotDTO getChangesSince(Long contestId, long since) {
+        return convertToDTO(standingsFor(contestId).changesSince(since));
+    }
+
+    public Optional<LeaderboardEntryDTO> getEntry(Long contestId, String userName) {
+        return standingsFor(contestId).find(userName).map(this::convertToDTO);
+    }
+
+    private ContestStandings standingsFor(Long contestId) {
+        return standingsByContest.computeIfAbsent(contestId, this::load);
+    }
+
+    private ContestStandings load(Long contestId) {
+        Map<String, Map<Long, ContestStandings.Solve>> solvesByUser = new HashMap<>();
+        for (Object[] row : submissionRepository.findSolvesByContestId(contestId)) {
+            solvesByUser.computeIfAbsent((String) row[0], user -> new HashMap<>())
+                    .put((Long) row[1], new ContestStandings.Solve((LocalDateTime) row[2], (Long) row[3]));
+        }
+        ContestStandings standings = new ContestStandings();
+        solvesByUser.forEach(standings::replaceSolves);
+        return standings;
+    }
+
+    private LeaderboardSnapshotDTO convertToDTO(ContestStandings.Snapshot snapshot) {
+        List<LeaderboardEntryDTO> entries = snapshot.getRows().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return new LeaderboardSnapshotDTO(snapshot.getVersion(), snapshot.getSize(), snapshot.isFull(), entries);
+    }
+
+    private LeaderboardEntryDTO convertToDTO(ContestStandings.RankedStanding ranked) {
+        Standing standing = ranked.getStanding();
+        LeaderboardEntryDTO dto = new LeaderboardEntryDTO();
+        dto.setRank(ranked.getRank());
+        dto.setUserName(standing.getUserName());
+        dto.setAcceptedCount((long) standing.getSolvedCount());
+        dto.setBestTimeMillis(standing.getBestTimeMillis());
+        dto.setLastAcceptedAt(standing.getLastAcceptedAt());
+        return dto;
+    }
+}
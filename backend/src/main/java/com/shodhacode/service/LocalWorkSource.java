@@ -0,0 +1,64 @@
+package com.shodhacode.service;
+
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.Submission;
+import com.shodhacode.repository.ProblemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Work for judges inside the backend, claimed straight from the database in scheduler order.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalWorkSource implements JudgeWorkSource {
+
+    private final SubmissionScheduler submissionScheduler;
+    private final JudgeQueue judgeQueue;
+    private final ProblemRepository problemRepository;
+    private final VerdictRecorder verdictRecorder;
+
+    @Override
+    public JudgeTask take(int batchSize) throws InterruptedException {
+        while (true) {
+            long submissionId = submissionScheduler.take();
+            Optional<Submission> claimed = judgeQueue.claim(submissionId);
+            if (claimed.isEmpty()) {
+                log.debug("Submission {} is no longer waiting to be judged", submissionId);
+                continue;
+            }
+            Submission submission = claimed.get();
+            try {
+                // Fetch problem with test cases to avoid lazy initialization
+                Problem problem = problemRepository.findByIdWithTestCases(submission.getProblem().getId())
+                        .orElseThrow(() -> new RuntimeException("Problem not found"));
+                return new JudgeTask(submission, submission.getSource().getCode(), problem);
+            } catch (RuntimeException e) {
+                judgeQueue.release(submission);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void started(JudgeTask task) {
+        verdictRecorder.started(task.getSubmission());
+    }
+
+    @Override
+    public void finished(JudgeTask task, boolean judged) {
+        verdictRecorder.finished(task, judged);
+        judgeQueue.judged(task.getSubmission().getId());
+    }
+
+    @Override
+    public void release(JudgeTask task) {
+        judgeQueue.release(task.getSubmission());
+    }
+}
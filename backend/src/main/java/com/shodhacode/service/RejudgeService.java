@@ -0,0 +1,224 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.RejudgeJobDTO;
+import com.shodhacode.dto.RejudgeRequestDTO;
+import com.shodhacode.event.SubmissionStatusEvent;
+import com.shodhacode.model.SubmissionStatus;
+import com.shodhacode.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk rejudges of a problem or contest, e.g. after its expected outputs were fixed. The chosen
+ * submissions go back to PENDING and into the scheduler's rejudge lane. Until its new verdict
+ * arrives a submission keeps counting on the leaderboard with its old one; each new verdict that
+ * gains or loses an accept then updates just that user's solve.
+ *
+ * <p>Jobs are kept in memory. Submissions a restart interrupted are still judged, but as ordinary
+ * pending work.
+ */
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class RejudgeService {
+
+    private static final Set<SubmissionStatus> VERDICTS =
+            EnumSet.complementOf(EnumSet.of(SubmissionStatus.PENDING, SubmissionStatus.RUNNING));
+    // Resets per transaction
+    private static final int RESET_BATCH_SIZE = 500;
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionScheduler submissionScheduler;
+    private final LeaderboardService leaderboardService;
+    private final SubmissionWriter submissionWriter;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final ConcurrentNavigableMap<Long, RejudgeJob> jobs = new ConcurrentSkipListMap<>();
+    // Submissions waiting for their new verdict
+    private final Map<Long, Awaiting> awaiting = new ConcurrentHashMap<>();
+
+    /**
+     * Puts the submissions back into the judge queue and returns the job tracking them.
+     * Submissions that are waiting or being judged already are left out, and so are those whose
+     * status changes before they are reset.
+     */
+    public synchronized RejudgeJobDTO start(RejudgeRequestDTO request) {
+        if ((request.getContestId() == null) == (request.getProblemId() == null)) {
+            throw new IllegalArgumentException("Rejudge either a contestId or a problemId");
+        }
+        Set<SubmissionStatus> statuses = request.getStatuses() == null || request.getStatuses().isEmpty()
+                ? VERDICTS : EnumSet.copyOf(request.getStatuses());
+        if (!VERDICTS.containsAll(statuses)) {
+            throw new IllegalArgumentException("Only verdicts can be rejudged, got " + statuses);
+        }
+
+        List<Object[]> candidates = request.getContestId() != null
+                ? submissionRepository.findRejudgeCandidatesByContestId(request.getContestId(), statuses)
+                : submissionRepository.findRejudgeCandidatesByProblemId(request.getProblemId(), statuses);
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Object[]> reset = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += RESET_BATCH_SIZE) {
+            List<Object[]> batch = candidates.subList(from, Math.min(candidates.size(), from + RESET_BATCH_SIZE));
+            reset.addAll(transactionTemplate.execute(status -> reset(batch, now)));
+        }
+
+        // Only what was reset is judged again, so the job ends with its last verdict
+        RejudgeJob job = new RejudgeJob(jobIds.incrementAndGet(), request.getContestId(), request.getProblemId(),
+                statuses, reset.size(), now);
+        for (Object[] row : reset) {
+            // Registered before it is queued, so its verdict cannot arrive unnoticed
+            awaiting.put((Long) row[0], new Awaiting(job, (SubmissionStatus) row[2]));
+            submissionScheduler.enqueue((Long) row[0], (String) row[1], SubmissionScheduler.Priority.REJUDGE);
+        }
+        jobs.put(job.id, job);
+        pruneFinishedJobs();
+        log.info("Rejudge {} started for {} submissions of {} {}, {} skipped as their status changed", job.id,
+                job.total, job.contestId != null ? "contest" : "problem",
+                job.contestId != null ? job.contestId : job.problemId, candidates.size() - job.total);
+        return toDTO(job);
+    }
+
+    public Optional<RejudgeJobDTO> getJob(long jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(this::toDTO);
+    }
+
+    // Newest first
+    public List<RejudgeJobDTO> getJobs() {
+        return jobs.descendingMap().values().stream().map(this::toDTO).collect(Collectors.toList());
+    }
+
+    @EventListener
+    public void onSubmissionStatus(SubmissionStatusEvent event) {
+        if (!event.isVerdict()) {
+            return;
+        }
+        Awaiting rejudged = awaiting.remove(event.getSubmissionId());
+        if (rejudged == null) {
+            return;
+        }
+        RejudgeJob job = rejudged.job;
+        job.recordVerdict(rejudged.previousStatus != event.getStatus());
+        // Only accepts are on the leaderboard; a faster accept can change it too
+        if (rejudged.previousStatus == SubmissionStatus.ACCEPTED || event.getStatus() == SubmissionStatus.ACCEPTED) {
+            leaderboardService.recomputeSolve(event.getContestId(), event.getUserName(), event.getProblemId(),
+                    this::previousVerdict);
+        }
+        if (job.finishedAt != null) {
+            log.info("Rejudge {} finished: {} of {} verdicts changed", job.id, job.changed.get(), job.total);
+        }
+    }
+
+    // The rows still holding the verdict they were chosen with. A status the writer has yet to
+    // commit means the submission is being judged or has a newer verdict on its way
+    private List<Object[]> reset(List<Object[]> candidates, LocalDateTime now) {
+        List<Object[]> reset = new ArrayList<>();
+        for (Object[] row : candidates) {
+            Long id = (Long) row[0];
+            if (submissionWriter.pendingUpdate(id).isEmpty()
+                    && submissionRepository.resetForRejudge(id, (SubmissionStatus) row[2], now) == 1) {
+                reset.add(row);
+            }
+        }
+        return reset;
+    }
+
+    private SubmissionStatus previousVerdict(Long submissionId) {
+        Awaiting waiting = awaiting.get(submissionId);
+        return waiting != null ? waiting.previousStatus : null;
+    }
+
+    private void pruneFinishedJobs() {
+        List<Long> finished = new ArrayList<>();
+        jobs.forEach((id, job) -> {
+            if (job.finishedAt != null) {
+                finished.add(id);
+            }
+        });
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i));
+        }
+    }
+
+    private RejudgeJobDTO toDTO(RejudgeJob job) {
+        int judged = job.judged.get();
+        Long etaSeconds = null;
+        if (job.finishedAt != null) {
+            etaSeconds = 0L;
+        } else if (judged > 0) {
+            long elapsedMillis = Duration.between(job.startedAt, LocalDateTime.now()).toMillis();
+            etaSeconds = elapsedMillis * (job.total - judged) / judged / 1000;
+        }
+        return new RejudgeJobDTO(job.id, job.contestId, job.problemId, job.statuses, job.finishedAt != null,
+                job.total, judged, job.changed.get(), job.startedAt, job.finishedAt, etaSeconds);
+    }
+
+    private static class RejudgeJob {
+
+        final long id;
+        final Long contestId;
+        final Long problemId;
+        final Set<SubmissionStatus> statuses;
+        final int total;
+        final LocalDateTime startedAt;
+        final AtomicInteger judged = new AtomicInteger();
+        final AtomicInteger changed = new AtomicInteger();
+        volatile LocalDateTime finishedAt;
+
+        RejudgeJob(long id, Long contestId, Long problemId, Set<SubmissionStatus> statuses, int total,
+                   LocalDateTime startedAt) {
+            this.id = id;
+            this.contestId = contestId;
+            this.problemId = problemId;
+            this.statuses = statuses;
+            this.total = total;
+            this.startedAt = startedAt;
+            if (total == 0) {
+                finishedAt = startedAt;
+            }
+        }
+
+        void recordVerdict(boolean verdictChanged) {
+            if (verdictChanged) {
+                changed.incrementAndGet();
+            }
+            if (judged.incrementAndGet() == total) {
+                finishedAt = LocalDateTime.now();
+            }
+        }
+    }
+
+    private static class Awaiting {
+
+        final RejudgeJob job;
+        final SubmissionStatus previousStatus;
+
+        Awaiting(RejudgeJob job, SubmissionStatus previousStatus) {
+            this.job = job;
+            this.previousStatus = previousStatus;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.shodhacode.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a submission is turned away at intake, with the time after which trying again
+ * makes sense.
+ */
+@Getter
+public class SubmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public SubmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,277 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.model.Contest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which waiting submission is judged next. Submissions to contests that are running go
+ * before practice submissions; within a priority users take turns, so one user's burst only
+ * delays that user. Intake is bounded twice: by the number of waiting submissions, and by a token
+ * bucket per user. Only ids are queued, so a waiting submission costs the same whatever its size.
+ *
+ * <p>Rejudged submissions come last and are not counted against the capacity. Only a few of them
+ * are handed out at a time, so a rejudge never occupies the judges a live submission arriving
+ * next would need.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+public class SubmissionScheduler {
+
+    public enum Priority {
+        LIVE_CONTEST,
+        PRACTICE,
+        REJUDGE;
+
+        // Running contests are judged first
+        public static Priority of(Contest contest) {
+            LocalDateTime now = LocalDateTime.now();
+            boolean running = !now.isBefore(contest.getStartTime()) && now.isBefore(contest.getEndTime());
+            return running ? LIVE_CONTEST : PRACTICE;
+        }
+    }
+
+    private final JudgeProperties judgeProperties;
+
+    private final Map<String, TokenBucket> bucketsByUser = new ConcurrentHashMap<>();
+    private final Map<Priority, RoundRobin> queues = newQueues();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int size;
+    // Rejudges handed out and not yet finished
+    private final Set<Long> rejudgesInFlight = new HashSet<>();
+
+    /**
+     * Takes one of the user's tokens, or throws if the user is over their rate or the queue is
+     * full. Concurrent admissions can overshoot the capacity by at most the number of request
+     * threads.
+     */
+    public void admit(String userName) {
+        JudgeProperties.SchedulerProperties settings = judgeProperties.getScheduler();
+        if (size() - rejudgesWaiting() >= settings.getCapacity()) {
+            throw new SubmissionRejectedException("The judge is at capacity, please try again shortly",
+                    settings.getOverloadRetryAfter());
+        }
+        TokenBucket bucket = bucketsByUser.computeIfAbsent(userName,
+                user -> new TokenBucket(settings.getUserBurst(), settings.getUserRefillInterval().toNanos()));
+        long waitNanos = bucket.tryTake(System.nanoTime());
+        if (waitNanos > 0) {
+            throw new SubmissionRejectedException("Too many submissions, please slow down", Duration.ofNanos(waitNanos));
+        }
+    }
+
+    public void enqueue(long submissionId, String userName, Priority priority) {
+        lock.lock();
+        try {
+            // A rejudge whose claim expired keeps its lane
+            if (rejudgesInFlight.remove(submissionId)) {
+                priority = Priority.REJUDGE;
+            }
+            queues.get(priority).add(submissionId, userName);
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next submission to judge and returns its id.
+     */
+    public long take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!hasNext()) {
+                notEmpty.await();
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the id of the next submission to judge, or null if none is waiting.
+     */
+    public Long poll() {
+        lock.lock();
+        try {
+            return hasNext() ? next() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to the timeout for the next submission to judge and returns its id, or null if
+     * none arrived.
+     */
+    public Long poll(Duration timeout) throws InterruptedException {
+        long remainingNanos = timeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            while (!hasNext()) {
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called once a submission handed out by this scheduler is no longer being judged, whether it
+     * got a verdict or could not be claimed. Frees its rejudge slot if it had one.
+     */
+    public void finished(long submissionId) {
+        lock.lock();
+        try {
+            if (rejudgesInFlight.remove(submissionId)) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int rejudgesWaiting() {
+        lock.lock();
+        try {
+            return queues.get(Priority.REJUDGE).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Map<Priority, RoundRobin> newQueues() {
+        Map<Priority, RoundRobin> queues = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new RoundRobin());
+        }
+        return queues;
+    }
+
+    private boolean rejudgeSlotFree() {
+        return rejudgesInFlight.size() < judgeProperties.getScheduler().getRejudgeConcurrency();
+    }
+
+    private boolean hasNext() {
+        int rejudges = queues.get(Priority.REJUDGE).size();
+        return size > rejudges || (rejudges > 0 && rejudgeSlotFree());
+    }
+
+    private long next() {
+        for (Map.Entry<Priority, RoundRobin> queue : queues.entrySet()) {
+            boolean rejudge = queue.getKey() == Priority.REJUDGE;
+            if (rejudge && !rejudgeSlotFree()) {
+                continue;
+            }
+            Long submissionId = queue.getValue().poll();
+            if (submissionId != null) {
+                size--;
+                if (rejudge) {
+                    rejudgesInFlight.add(submissionId);
+                }
+                return submissionId;
+            }
+        }
+        throw new IllegalStateException("Scheduler size out of sync with its queues");
+    }
+
+    /**
+     * Per-user FIFO queues served one submission per user in turn.
+     */
+    private static class RoundRobin {
+
+        private final Map<String, ArrayDeque<Long>> pendingByUser = new HashMap<>();
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private int size;
+
+        void add(long submissionId, String userName) {
+            ArrayDeque<Long> pending = pendingByUser.get(userName);
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+                pendingByUser.put(userName, pending);
+                turns.addLast(userName);
+            }
+            pending.addLast(submissionId);
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Long poll() {
+            String userName = turns.pollFirst();
+            if (userName == null) {
+                return null;
+            }
+            ArrayDeque<Long> pending = pendingByUser.get(userName);
+            Long submissionId = pending.pollFirst();
+            size--;
+            if (pending.isEmpty()) {
+                pendingByUser.remove(userName);
+            } else {
+                turns.addLast(userName);
+            }
+            return submissionId;
+        }
+    }
+
+    private static class TokenBucket {
+
+        private final int capacity;
+        private final long refillNanos;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(int capacity, long refillNanos) {
+            this.capacity = capacity;
+            this.refillNanos = refillNanos;
+            this.tokens = capacity;
+            this.updatedAt = System.nanoTime();
+        }
+
+        /**
+         * Takes a token if one is available and returns zero, otherwise returns the nanoseconds
+         * until the next token.
+         */
+        synchronized long tryTake(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - updatedAt) / refillNanos);
+            updatedAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * refillNanos);
+        }
+    }
+}
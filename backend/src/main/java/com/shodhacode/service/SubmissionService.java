@@ -1,64 +1,95 @@
 package com.shodhacode.service;
 
+import com.shodhacode.config.JudgeProperties;
 import com.shodhacode.dto.SubmissionCreateRequest;
 import com.shodhacode.dto.SubmissionDTO;
+import com.shodhacode.dto.SubmissionStatusDTO;
+import com.shodhacode.event.SubmissionStatusEvent;
 import com.shodhacode.model.Problem;
 import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionSource;
 import com.shodhacode.model.SubmissionStatus;
 import com.shodhacode.repository.ProblemRepository;
 import com.shodhacode.repository.SubmissionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Optional;
 
 @Service
+@Profile("!agent")
 @RequiredArgsConstructor
 @Slf4j
 public class SubmissionService {
     
     private final SubmissionRepository submissionRepository;
     private final ProblemRepository problemRepository;
-    
-    private final BlockingQueue<Submission> submissionQueue = new LinkedBlockingQueue<>();
+    private final VerdictCache verdictCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubmissionScheduler submissionScheduler;
+    private final SubmissionWriter submissionWriter;
+    private final JudgeProperties judgeProperties;
     
     public SubmissionDTO createSubmission(SubmissionCreateRequest request) {
         log.info("Creating submission for user: {}, problem: {}", request.getUserName(), request.getProblemId());
         
-        Problem problem = problemRepository.findById(request.getProblemId())
+        Problem problem = problemRepository.findByIdWithContest(request.getProblemId())
                 .orElseThrow(() -> new RuntimeException("Problem not found"));
+        submissionScheduler.admit(request.getUserName());
         
         Submission submission = new Submission();
         submission.setUserName(request.getUserName());
         submission.setProblem(problem);
-        submission.setCode(request.getCode());
+        submission.setContestId(problem.getContest().getId());
+        submission.setSource(SubmissionSource.of(request.getCode(),
+                judgeProperties.getPersistence().getCompressSourcesFrom().toBytes()));
         submission.setLanguage(request.getLanguage());
         submission.setStatus(SubmissionStatus.PENDING);
         
-        submission = submissionRepository.save(submission);
-        
-        // Add to processing queue
-        try {
-            submissionQueue.put(submission);
-            log.info("Added submission {} to processing queue", submission.getId());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Failed to add submission to queue", e);
+        // Identical code for the same test data gets the known verdict without being judged again
+        Optional<VerdictCache.CachedVerdict> cached = verdictCache.lookup(problem, request.getLanguage(), request.getCode());
+        if (cached.isPresent()) {
+            VerdictCache.CachedVerdict verdict = cached.get();
+            submission.setStatus(verdict.getStatus());
+            submission.setResult(verdict.getResult());
+            submission.setRunTime(verdict.getRunTime());
+            submission.setMemoryUsed(verdict.getMemoryUsed());
+            submission = submissionWriter.insert(submission);
+            eventPublisher.publishEvent(SubmissionStatusEvent.of(submission, null));
+            log.info("Submission {} answered from verdict cache with status: {}", submission.getId(), submission.getStatus());
+            return convertToDTO(submission);
         }
         
+        submission = submissionWriter.insert(submission);
+        eventPublisher.publishEvent(SubmissionStatusEvent.of(submission, null));
+        
+        // Should the backend stop before judging it, JudgeQueue finds it PENDING on startup
+        SubmissionScheduler.Priority priority = SubmissionScheduler.Priority.of(problem.getContest());
+        submissionScheduler.enqueue(submission.getId(), submission.getUserName(), priority);
+        log.info("Added submission {} to processing queue with priority {}", submission.getId(), priority);
+        
         return convertToDTO(submission);
     }
     
     public SubmissionDTO getSubmission(Long id) {
-        Submission submission = submissionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Submission not found"));
-        return convertToDTO(submission);
+        return findWithPendingUpdate(id);
+    }
+    
+    public SubmissionStatusDTO getSubmissionStatus(Long id) {
+        SubmissionDTO submission = findWithPendingUpdate(id);
+        return new SubmissionStatusDTO(submission.getId(), submission.getStatus(), submission.getResult(),
+                submission.getRunTime(), submission.getMemoryUsed());
     }
     
-    public BlockingQueue<Submission> getSubmissionQueue() {
-        return submissionQueue;
+    // The judge's latest status may not be committed yet; readers see it anyway
+    private SubmissionDTO findWithPendingUpdate(Long id) {
+        SubmissionDTO submission = submissionRepository.findDtoById(id)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        submissionWriter.pendingUpdate(id).ifPresent(update -> update.applyTo(submission));
+        return submission;
     }
     
     private SubmissionDTO convertToDTO(Submission submission) {
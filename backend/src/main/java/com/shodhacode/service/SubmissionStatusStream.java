@@ -0,0 +1,128 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.dto.SubmissionStatusDTO;
+import com.shodhacode.event.SubmissionStatusEvent;
+import com.shodhacode.model.SubmissionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes a submission's status changes to subscribed clients as server-sent events. Open streams
+ * are parked servlet async requests, so they hold a connection but no thread; updates are written
+ * by a small fixed pool. A stream ends once the verdict has been sent.
+ */
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionStatusStream {
+
+    private static final String EVENT_NAME = "status";
+
+    private final SubmissionService submissionService;
+    private final JudgeProperties judgeProperties;
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Set<SseEmitter> openStreams = ConcurrentHashMap.newKeySet();
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        JudgeProperties.StatusStreamProperties properties = judgeProperties.getStatusStream();
+        sender = Executors.newFixedThreadPool(Math.max(1, properties.getSendThreads()),
+                new CustomizableThreadFactory("status-stream-"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        openStreams.forEach(SseEmitter::complete);
+    }
+
+    public SseEmitter subscribe(Long submissionId) {
+        JudgeProperties.StatusStreamProperties properties = judgeProperties.getStatusStream();
+        if (openStreams.size() >= properties.getMaxStreams()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open status streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        emitter.onCompletion(() -> unsubscribe(submissionId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(submissionId, emitter));
+
+        // Register before reading the current status so no transition can slip in between
+        openStreams.add(emitter);
+        subscribers.computeIfAbsent(submissionId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        SubmissionStatusDTO current;
+        try {
+            current = submissionService.getSubmissionStatus(submissionId);
+        } catch (RuntimeException e) {
+            unsubscribe(submissionId, emitter);
+            throw e;
+        }
+        boolean finished = send(emitter, current);
+        if (finished) {
+            unsubscribe(submissionId, emitter);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onSubmissionStatus(SubmissionStatusEvent event) {
+        Set<SseEmitter> emitters = event.isVerdict()
+                ? subscribers.remove(event.getSubmissionId())
+                : subscribers.get(event.getSubmissionId());
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        SubmissionStatusDTO update = new SubmissionStatusDTO(event.getSubmissionId(), event.getStatus(),
+                event.getResult(), event.getRunTime(), event.getMemoryUsed());
+        sender.execute(() -> emitters.forEach(emitter -> send(emitter, update)));
+    }
+
+    // Returns whether the stream was closed, either because the verdict went out or the client is gone
+    private boolean send(SseEmitter emitter, SubmissionStatusDTO update) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(update));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping status stream for submission {}: {}", update.getId(), e.getMessage());
+            emitter.completeWithError(e);
+            return true;
+        }
+        if (isVerdict(update.getStatus())) {
+            emitter.complete();
+            return true;
+        }
+        return false;
+    }
+
+    private void unsubscribe(Long submissionId, SseEmitter emitter) {
+        openStreams.remove(emitter);
+        subscribers.computeIfPresent(submissionId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static boolean isVerdict(SubmissionStatus status) {
+        return status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING;
+    }
+}
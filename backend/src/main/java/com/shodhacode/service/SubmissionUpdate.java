@@ -0,0 +1,62 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.SubmissionDTO;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * The judge-owned fields of a submission at one point in time, waiting to be written.
+ */
+@Value
+public class SubmissionUpdate {
+
+    Long id;
+    String language;
+    SubmissionStatus status;
+    String result;
+    Long runTime;
+    Long memoryUsed;
+    LocalDateTime updatedAt;
+    // The judge whose claim the update was made under, if any
+    String claimedBy;
+    // When the update was handed to the writer, for its persistence latency
+    long queuedAtNanos;
+
+    public static SubmissionUpdate of(Submission submission) {
+        return new SubmissionUpdate(submission.getId(), submission.getLanguage(), submission.getStatus(),
+                submission.getResult(), submission.getRunTime(), submission.getMemoryUsed(), LocalDateTime.now(),
+                submission.getClaimedBy(), System.nanoTime());
+    }
+
+    /**
+     * Whether the judge that made the update still holds the submission. Once its lease ran out
+     * the submission went back to the queue, and another judge's claim or verdict must stand.
+     */
+    public boolean isCurrentFor(Submission submission) {
+        return claimedBy == null || claimedBy.equals(submission.getClaimedBy());
+    }
+
+    public void applyTo(Submission submission) {
+        submission.setStatus(status);
+        submission.setResult(result);
+        submission.setRunTime(runTime);
+        submission.setMemoryUsed(memoryUsed);
+        submission.setUpdatedAt(updatedAt);
+        if (status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING) {
+            // The verdict ends the judge's claim
+            submission.setClaimedBy(null);
+            submission.setLeaseExpiresAt(null);
+        }
+    }
+
+    public void applyTo(SubmissionDTO submission) {
+        submission.setStatus(status);
+        submission.setResult(result);
+        submission.setRunTime(runTime);
+        submission.setMemoryUsed(memoryUsed);
+        submission.setUpdatedAt(updatedAt);
+    }
+}
@@ -0,0 +1,289 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.judge.Language;
+import com.shodhacode.metrics.JudgeMetrics;
+import com.shodhacode.metrics.JudgePhase;
+import com.shodhacode.model.Submission;
+import com.shodhacode.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes submissions to the database in batches, one transaction per batch, from a single writer
+ * thread. New submissions are written before the caller gets an id back. Status updates from the
+ * judge are written behind: the latest state of each submission is kept until it is committed
+ * and served to readers in the meantime, so a client never reads an older status than it was
+ * pushed. Several updates of one submission inside a batch window cost a single write. A batch
+ * that fails is written again row by row, so only the rows that fail on their own are rejected.
+ * A verdict from a judge whose claim was lost meanwhile is dropped.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionWriter {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final SubmissionRepository submissionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JudgeProperties judgeProperties;
+    private final JudgeMetrics judgeMetrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final List<PendingInsert> pendingInserts = new ArrayList<>();
+    // Latest uncommitted state per submission id, in the order submissions were first updated
+    private final Map<Long, SubmissionUpdate> pendingUpdates = new LinkedHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("submission-writer-"));
+    private TransactionTemplate transactionTemplate;
+    private boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer.execute(this::writeBatches);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        // Pending writes are still flushed on the way out
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Submission writer did not finish, {} updates not written", pendingUpdates.size());
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes a new submission with the next batch and returns it once committed, with its id set.
+     */
+    public Submission insert(Submission submission) {
+        PendingInsert insert = new PendingInsert(submission);
+        lock.lock();
+        try {
+            pendingInserts.add(insert);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return insert.committed.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Queues the submission's current status for writing and returns right away.
+     */
+    public void update(Submission submission) {
+        SubmissionUpdate update = SubmissionUpdate.of(submission);
+        lock.lock();
+        try {
+            pendingUpdates.put(update.getId(), update);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The status written for the submission but not yet committed, if any.
+     */
+    public Optional<SubmissionUpdate> pendingUpdate(Long submissionId) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(pendingUpdates.get(submissionId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeBatches() {
+        JudgeProperties.PersistenceProperties settings = judgeProperties.getPersistence();
+        while (true) {
+            try {
+                if (!awaitWork()) {
+                    return;
+                }
+                // Let writes arriving together share one commit
+                Thread.sleep(settings.getFlushDelay().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            List<PendingInsert> inserts = new ArrayList<>();
+            List<SubmissionUpdate> updates = new ArrayList<>();
+            lock.lock();
+            try {
+                int batchSize = settings.getBatchSize();
+                Iterator<PendingInsert> insertIterator = pendingInserts.iterator();
+                while (insertIterator.hasNext() && inserts.size() < batchSize) {
+                    inserts.add(insertIterator.next());
+                    insertIterator.remove();
+                }
+                // Updates stay visible to readers until they are committed
+                Iterator<SubmissionUpdate> updateIterator = pendingUpdates.values().iterator();
+                while (updateIterator.hasNext() && updates.size() < batchSize) {
+                    updates.add(updateIterator.next());
+                }
+            } finally {
+                lock.unlock();
+            }
+            write(inserts, updates);
+        }
+    }
+
+    // Returns false once stopped and everything is written
+    private boolean awaitWork() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pendingInserts.isEmpty() && pendingUpdates.isEmpty()) {
+                if (!running) {
+                    return false;
+                }
+                workAvailable.await();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(List<PendingInsert> inserts, List<SubmissionUpdate> updates) {
+        try {
+            commit(inserts, updates);
+        } catch (RuntimeException e) {
+            if (inserts.size() + updates.size() > 1) {
+                log.warn("Failed to write {} new and {} updated submissions together, writing them one by one: {}",
+                        inserts.size(), updates.size(), e.getMessage());
+                writeOneByOne(inserts, updates);
+                return;
+            }
+            log.error("Failed to write {} new and {} updated submissions: {}", inserts.size(), updates.size(),
+                    e.getMessage());
+            inserts.forEach(insert -> insert.committed.completeExceptionally(e));
+            // The updates are still pending and go out with a later batch
+            sleepBeforeRetry();
+            return;
+        }
+        written(inserts, updates);
+        log.debug("Wrote {} new and {} updated submissions", inserts.size(), updates.size());
+    }
+
+    // After a failed batch, so that a bad row fails on its own rather than with the batch
+    private void writeOneByOne(List<PendingInsert> inserts, List<SubmissionUpdate> updates) {
+        boolean updateFailed = false;
+        for (PendingInsert insert : inserts) {
+            // The rolled back batch already gave it ids that were never committed
+            insert.getSubmission().setId(null);
+            insert.getSubmission().getSource().setId(null);
+            try {
+                commit(List.of(insert), List.of());
+                written(List.of(insert), List.of());
+            } catch (RuntimeException e) {
+                log.error("Failed to write a new submission by {}: {}", insert.getSubmission().getUserName(),
+                        e.getMessage());
+                insert.committed.completeExceptionally(e);
+            }
+        }
+        for (SubmissionUpdate update : updates) {
+            try {
+                commit(List.of(), List.of(update));
+                written(List.of(), List.of(update));
+            } catch (RuntimeException e) {
+                log.error("Failed to write the status of submission {}: {}", update.getId(), e.getMessage());
+                updateFailed = true;
+            }
+        }
+        if (updateFailed) {
+            // Still pending, they are tried again with a later batch
+            sleepBeforeRetry();
+        }
+    }
+
+    private void commit(List<PendingInsert> inserts, List<SubmissionUpdate> updates) {
+        transactionTemplate.executeWithoutResult(status -> {
+            submissionRepository.saveAll(inserts.stream().map(PendingInsert::getSubmission).toList());
+            if (!updates.isEmpty()) {
+                Map<Long, SubmissionUpdate> updatesById = new HashMap<>();
+                updates.forEach(update -> updatesById.put(update.getId(), update));
+                for (Submission submission : submissionRepository.findAllByIdForUpdate(updatesById.keySet())) {
+                    SubmissionUpdate update = updatesById.get(submission.getId());
+                    if (update.isCurrentFor(submission)) {
+                        update.applyTo(submission);
+                    } else {
+                        log.warn("Dropped the {} verdict for submission {}, {} no longer holds its claim",
+                                update.getStatus(), submission.getId(), update.getClaimedBy());
+                    }
+                }
+            }
+        });
+    }
+
+    private void written(List<PendingInsert> inserts, List<SubmissionUpdate> updates) {
+        inserts.forEach(insert -> insert.committed.complete(insert.getSubmission()));
+        lock.lock();
+        try {
+            // A newer status that arrived meanwhile stays pending
+            updates.forEach(update -> pendingUpdates.remove(update.getId(), update));
+        } finally {
+            lock.unlock();
+        }
+        long now = System.nanoTime();
+        for (SubmissionUpdate update : updates) {
+            judgeMetrics.record(JudgePhase.PERSISTENCE, update.getId(), Language.fromName(update.getLanguage()),
+                    update.getStatus(), now - update.getQueuedAtNanos());
+        }
+    }
+
+    private static void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingInsert {
+
+        private final Submission submission;
+        private final CompletableFuture<Submission> committed = new CompletableFuture<>();
+    }
+}
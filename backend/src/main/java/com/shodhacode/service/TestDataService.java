@@ -0,0 +1,60 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeProblemDTO;
+import com.shodhacode.dto.TestCaseRefDTO;
+import com.shodhacode.dto.TestDataDTO;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.TestCase;
+import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.storage.TestDataStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class TestDataService {
+
+    private final ProblemRepository problemRepository;
+    private final TestDataStore testDataStore;
+
+    public TestDataDTO upload(InputStream content) throws IOException {
+        TestDataStore.StoredData stored = testDataStore.put(content);
+        log.info("Stored test data {} of {} bytes", stored.getHash(), stored.getSize());
+        return new TestDataDTO(stored.getHash(), stored.getSize());
+    }
+
+    /**
+     * Replaces the problem's tests with uploaded test data. The problem version changes with
+     * them, so cached inputs and verdicts of the old tests are no longer used.
+     */
+    public JudgeProblemDTO replaceTestCases(Long problemId, List<TestCaseRefDTO> refs) throws IOException {
+        Problem problem = problemRepository.findByIdWithTestCases(problemId)
+                .orElseThrow(() -> new RuntimeException("Problem not found"));
+        List<TestCase> testCases = new ArrayList<>(refs.size());
+        for (TestCaseRefDTO ref : refs) {
+            testCases.add(new TestCase(ref.getInputHash(), sizeOf(ref.getInputHash()),
+                    ref.getOutputHash(), sizeOf(ref.getOutputHash())));
+        }
+        problem.setTestCases(testCases);
+        Problem saved = problemRepository.save(problem);
+        log.info("Problem {} has {} test cases as of version {}", problemId, testCases.size(), saved.getVersion());
+        return new JudgeProblemDTO(saved.getId(), saved.getVersion(), saved.getTimeLimitMillis(),
+                saved.getMemoryLimitMb(), saved.getTestCases());
+    }
+
+    private long sizeOf(String hash) throws IOException {
+        if (!testDataStore.contains(hash)) {
+            throw new IllegalArgumentException("Unknown test data " + hash);
+        }
+        return testDataStore.size(hash);
+    }
+}
@@ -0,0 +1,116 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.judge.Language;
+import com.shodhacode.model.Problem;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Remembers verdicts of judged code so byte-identical resubmissions can be answered without
+ * queueing. Keys hash the code together with the language and the problem version, so any change
+ * to a problem's test cases makes older entries unreachable; those then age out in LRU order.
+ */
+@Component
+@Profile("!agent")
+@RequiredArgsConstructor
+@Slf4j
+public class VerdictCache {
+
+    // Only verdicts that depend on nothing but the code and the test data are reused
+    private static final Set<SubmissionStatus> CACHEABLE_STATUSES = EnumSet.of(
+            SubmissionStatus.ACCEPTED,
+            SubmissionStatus.WRONG_ANSWER,
+            SubmissionStatus.OUTPUT_LIMIT_EXCEEDED,
+            SubmissionStatus.COMPILATION_ERROR);
+
+    // Rough per-entry footprint: key string, map node and value object
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private final JudgeProperties judgeProperties;
+
+    private final LinkedHashMap<String, CachedVerdict> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public Optional<CachedVerdict> lookup(Problem problem, String language, String code) {
+        if (!judgeProperties.getVerdictCache().isEnabled()) {
+            return Optional.empty();
+        }
+        String key = cacheKey(problem, language, code);
+        synchronized (this) {
+            return Optional.ofNullable(entries.get(key));
+        }
+    }
+
+    /**
+     * Records the verdict of a judged submission. The problem must be the one the submission was
+     * judged against, so the entry is keyed by the test data actually used.
+     */
+    public void store(Problem problem, Submission submission, String code) {
+        if (!judgeProperties.getVerdictCache().isEnabled()
+                || !CACHEABLE_STATUSES.contains(submission.getStatus())) {
+            return;
+        }
+        String key = cacheKey(problem, submission.getLanguage(), code);
+        CachedVerdict verdict = new CachedVerdict(submission.getStatus(), submission.getResult(),
+                submission.getRunTime(), submission.getMemoryUsed());
+
+        synchronized (this) {
+            CachedVerdict previous = entries.put(key, verdict);
+            if (previous != null) {
+                totalBytes -= previous.estimatedBytes();
+            }
+            totalBytes += verdict.estimatedBytes();
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        JudgeProperties.VerdictCacheProperties limits = judgeProperties.getVerdictCache();
+        Iterator<Map.Entry<String, CachedVerdict>> eldest = entries.entrySet().iterator();
+        while (eldest.hasNext() && (entries.size() > limits.getMaxEntries() || totalBytes > limits.getMaxBytes())) {
+            totalBytes -= eldest.next().getValue().estimatedBytes();
+            eldest.remove();
+        }
+    }
+
+    private String cacheKey(Problem problem, String language, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String header = problem.getId() + ":" + problem.getVersion() + ":" + Language.fromName(language).getKey() + ":";
+            digest.update(header.getBytes(StandardCharsets.UTF_8));
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Value
+    public static class CachedVerdict {
+        SubmissionStatus status;
+        String result;
+        Long runTime;
+        Long memoryUsed;
+
+        long estimatedBytes() {
+            return ENTRY_OVERHEAD_BYTES + (result != null ? 2L * result.length() : 0);
+        }
+    }
+}
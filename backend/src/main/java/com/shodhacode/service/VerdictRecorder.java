@@ -0,0 +1,40 @@
+package com.shodhacode.service;
+
+import com.shodhacode.event.SubmissionStatusEvent;
+import com.shodhacode.model.Submission;
+import com.shodhacode.model.SubmissionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records the progress of judging, whether the judge runs in this backend or in an agent.
+ */
+@Service
+@Profile("!agent")
+@RequiredArgsConstructor
+public class VerdictRecorder {
+
+    private final VerdictCache verdictCache;
+    private final SubmissionWriter submissionWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubmissionScheduler submissionScheduler;
+
+    // The claim already stored RUNNING
+    public void started(Submission submission) {
+        eventPublisher.publishEvent(SubmissionStatusEvent.of(submission, SubmissionStatus.PENDING));
+    }
+
+    public void finished(JudgeTask task, boolean judged) {
+        Submission submission = task.getSubmission();
+        // Identical code for the same test data gets this verdict without being judged again
+        if (judged) {
+            verdictCache.store(task.getProblem(), submission, task.getCode());
+        }
+        // Written behind in batches; reads see the new status before it is committed
+        submissionWriter.update(submission);
+        eventPublisher.publishEvent(SubmissionStatusEvent.of(submission, SubmissionStatus.RUNNING));
+        submissionScheduler.finished(submission.getId());
+    }
+}
@@ -0,0 +1,190 @@
+package com.shodhacode.storage;
+
+import com.shodhacode.config.JudgeProperties;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test inputs and expected outputs on disk, addressed by the SHA-256 of their content. Files are
+ * written and read as streams, so their size is bounded by the disk rather than the heap, and
+ * identical files are stored once. A file is stored as {@code ab/<hash>}, or {@code ab/<hash>.gz}
+ * when compression is on; the hash is always that of the uncompressed content.
+ */
+@Component
+@Slf4j
+public class TestDataStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String COMPRESSED_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Duration STALE_UPLOAD_AGE = Duration.ofHours(1);
+
+    private final Path root;
+    private final Path uploads;
+    private final boolean compress;
+    private final long maxSize;
+
+    public TestDataStore(JudgeProperties judgeProperties) throws IOException {
+        JudgeProperties.TestDataProperties settings = judgeProperties.getTestData();
+        this.root = Paths.get(settings.getRoot()).toAbsolutePath();
+        this.uploads = root.resolve("uploads");
+        this.compress = settings.isCompress();
+        this.maxSize = settings.getMaxSize().toBytes();
+        Files.createDirectories(uploads);
+        // Leftovers of uploads interrupted by a crash. Recent ones may belong to another process
+        // sharing the store.
+        Instant staleBefore = Instant.now().minus(STALE_UPLOAD_AGE);
+        try (Stream<Path> leftovers = Files.list(uploads)) {
+            for (Path path : leftovers.toList()) {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(staleBefore)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        log.info("Test data stored in {}{}", root, compress ? ", compressed" : "");
+    }
+
+    public StoredData put(String content) throws IOException {
+        return put(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    public StoredData put(InputStream content) throws IOException {
+        return put(content, null);
+    }
+
+    /**
+     * Stores the content, which must hash to {@code expectedHash} unless that is null. The content
+     * is hashed while it is written to a temporary file, which is then moved into place; storing
+     * a file that is already there just discards the copy.
+     */
+    public StoredData put(InputStream content, String expectedHash) throws IOException {
+        Path upload = Files.createTempFile(uploads, "upload-", "");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream file = Files.newOutputStream(upload);
+                 OutputStream out = compress ? new GZIPOutputStream(file, BUFFER_SIZE) : file) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    size += n;
+                    if (size > maxSize) {
+                        throw new IllegalArgumentException("Test data exceeds the limit of " + maxSize + " bytes");
+                    }
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (expectedHash != null && !expectedHash.equals(hash)) {
+                throw new IOException("Test data " + expectedHash + " arrived with hash " + hash);
+            }
+            if (find(hash).isEmpty()) {
+                Path target = pathOf(hash, compress);
+                Files.createDirectories(target.getParent());
+                // A rename: concurrent uploads of the same content replace each other with identical bytes
+                Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredData(hash, size);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    public boolean contains(String hash) {
+        return find(hash).isPresent();
+    }
+
+    public Optional<StoredFile> find(String hash) {
+        Path plain = pathOf(hash, false);
+        if (Files.exists(plain)) {
+            return Optional.of(new StoredFile(plain, false));
+        }
+        Path compressed = pathOf(hash, true);
+        return Files.exists(compressed) ? Optional.of(new StoredFile(compressed, true)) : Optional.empty();
+    }
+
+    /**
+     * Opens the uncompressed content.
+     */
+    public InputStream open(String hash) throws IOException {
+        StoredFile file = find(hash).orElseThrow(() -> new NoSuchFileException("No test data " + hash));
+        InputStream in = Files.newInputStream(file.getPath());
+        return file.isCompressed() ? new GZIPInputStream(in, BUFFER_SIZE) : new BufferedInputStream(in, BUFFER_SIZE);
+    }
+
+    public Reader openReader(String hash) throws IOException {
+        return new InputStreamReader(open(hash), StandardCharsets.UTF_8);
+    }
+
+    public void copyTo(String hash, Path target) throws IOException {
+        try (InputStream in = open(hash)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Uncompressed size of the content, read through once if it is stored compressed.
+     */
+    public long size(String hash) throws IOException {
+        StoredFile file = find(hash).orElseThrow(() -> new NoSuchFileException("No test data " + hash));
+        if (!file.isCompressed()) {
+            return Files.size(file.getPath());
+        }
+        try (InputStream in = open(hash)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private Path pathOf(String hash, boolean compressed) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a test data hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(compressed ? hash + COMPRESSED_SUFFIX : hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Value
+    public static class StoredData {
+        String hash;
+        long size;
+    }
+
+    @Value
+    public static class StoredFile {
+        Path path;
+        boolean compressed;
+    }
+}
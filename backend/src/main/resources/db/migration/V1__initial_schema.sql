@@ -0,0 +1,61 @@
+-- Schema as created by Hibernate before migrations were introduced
+
+create sequence contest_seq start with 1 increment by 50;
+create sequence problem_seq start with 1 increment by 50;
+create sequence submission_seq start with 1 increment by 50;
+create sequence submission_source_seq start with 1 increment by 50;
+
+create table contests (
+    id bigint not null,
+    title varchar(255) not null,
+    description text,
+    start_time timestamp(6) not null,
+    end_time timestamp(6) not null,
+    primary key (id)
+);
+
+create table problems (
+    id bigint not null,
+    contest_id bigint not null,
+    title varchar(255) not null,
+    statement text,
+    time_limit_millis bigint,
+    memory_limit_mb integer,
+    version bigint,
+    primary key (id),
+    constraint fk_problems_contest foreign key (contest_id) references contests
+);
+
+create table test_cases (
+    problem_id bigint not null,
+    input text,
+    expected_output text,
+    constraint fk_test_cases_problem foreign key (problem_id) references problems
+);
+
+create table submission_sources (
+    id bigint not null,
+    content blob not null,
+    compressed boolean not null,
+    primary key (id)
+);
+
+create table submissions (
+    id bigint not null,
+    user_name varchar(255) not null,
+    problem_id bigint not null,
+    source_id bigint not null unique,
+    language varchar(255) not null,
+    status varchar(255) not null check (status in ('PENDING','RUNNING','ACCEPTED','WRONG_ANSWER',
+        'RUNTIME_ERROR','TIMED_OUT','MEMORY_LIMIT_EXCEEDED','COMPILATION_ERROR')),
+    result text,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    run_time bigint,
+    memory_used bigint,
+    claimed_by varchar(255),
+    lease_expires_at timestamp(6),
+    primary key (id),
+    constraint fk_submissions_problem foreign key (problem_id) references problems,
+    constraint fk_submissions_source foreign key (source_id) references submission_sources
+);
@@ -0,0 +1,17 @@
+-- Contest of each submission on its own row, so leaderboard queries need no join through problems
+alter table submissions add column contest_id bigint;
+update submissions set contest_id = (select p.contest_id from problems p where p.id = submissions.problem_id);
+alter table submissions alter column contest_id set not null;
+alter table submissions add constraint fk_submissions_contest foreign key (contest_id) references contests;
+
+-- Leaderboard: the trailing columns let the solve query read the index alone
+create index idx_submissions_contest_status_user
+    on submissions (contest_id, status, user_name, problem_id, created_at, run_time);
+-- Submission history of a problem, newest first. The foreign key is added again afterwards so
+-- that H2 backs it with this index rather than one of its own on problem_id alone
+alter table submissions drop constraint fk_submissions_problem;
+create index idx_submissions_problem_created on submissions (problem_id, created_at);
+alter table submissions add constraint fk_submissions_problem foreign key (problem_id) references problems;
+-- Judge queue: pending work and expired leases, and the claims of one judge
+create index idx_submissions_status_lease on submissions (status, lease_expires_at);
+create index idx_submissions_claimed_by on submissions (claimed_by);
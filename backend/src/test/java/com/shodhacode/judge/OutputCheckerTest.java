@@ -0,0 +1,128 @@
+package com.shodhacode.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputCheckerTest {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    @Test
+    void identicalOutputMatches() throws IOException {
+        assertThat(check("1\n2\n3\n", "1\n2\n3\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void differentTokenIsAMismatch() throws IOException {
+        assertThat(check("1\n2\n3\n", "1\n2\n4\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+        assertThat(check("1 2", "1 3")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void missingOrExtraLinesAreAMismatch() throws IOException {
+        assertThat(check("1\n2\n", "1\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+        assertThat(check("1\n", "1\n2\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void trailingWhitespaceOnALineIsIgnored() throws IOException {
+        assertThat(check("1 2\n3\n", "1 2   \n3\t\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("1 2  \n3\n", "1 2\n3\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void whitespaceInsideALineMustMatch() throws IOException {
+        assertThat(check("1 2\n", "1  2\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+        assertThat(check("1\n2\n", "1\n 2\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void leadingWhitespaceOfTheWholeOutputIsIgnored() throws IOException {
+        assertThat(check("42\n", "\n\n   42\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("  42\n", "42")).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void blankLinesAtTheEndAreIgnored() throws IOException {
+        assertThat(check("1\n2", "1\n2\n\n\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("1\n2\n\n", "1\n2")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("1\n", "1\n   \n\t\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void blankLinesBetweenLinesMustMatch() throws IOException {
+        assertThat(check("1\n\n2\n", "1\n\n2\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("1\n\n2\n", "1\n2\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+        assertThat(check("1\n2\n", "1\n\n\n2\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void lineEndingsDoNotMatter() throws IOException {
+        assertThat(check("1\n2\n", "1\r\n2\r\n")).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void emptyOutputMatchesOnlyEmptyExpectedOutput() throws IOException {
+        assertThat(check("", "")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("", "\n \n")).isEqualTo(OutputChecker.Verdict.MATCH);
+        assertThat(check("0\n", "")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+        assertThat(check("", "0\n")).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void outputUpToTheLimitIsChecked() throws IOException {
+        String output = "0123456789";
+        assertThat(check(output, output, output.length())).isEqualTo(OutputChecker.Verdict.MATCH);
+    }
+
+    @Test
+    void outputPastTheLimitIsRejected() throws IOException {
+        String output = "0123456789\n";
+        assertThat(check(output, output, output.length() - 1)).isEqualTo(OutputChecker.Verdict.OUTPUT_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    void checkingStopsAtTheFirstDifference() throws IOException {
+        // Would never end if the checker read the whole output first
+        InputStream endlessLines = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                return position++ % 2 == 0 ? 'x' : '\n';
+            }
+        };
+        OutputChecker checker = new OutputChecker(new StringReader("y\n"), NO_LIMIT);
+
+        assertThat(checker.check(endlessLines)).isEqualTo(OutputChecker.Verdict.MISMATCH);
+    }
+
+    @Test
+    void endlessOutputRunsIntoTheLimit() throws IOException {
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return '1';
+            }
+        };
+        OutputChecker checker = new OutputChecker(new StringReader("1\n"), 1024);
+
+        assertThat(checker.check(endless)).isEqualTo(OutputChecker.Verdict.OUTPUT_LIMIT_EXCEEDED);
+    }
+
+    private static OutputChecker.Verdict check(String expected, String actual) throws IOException {
+        return check(expected, actual, NO_LIMIT);
+    }
+
+    private static OutputChecker.Verdict check(String expected, String actual, long limit) throws IOException {
+        OutputChecker checker = new OutputChecker(new StringReader(expected), limit);
+        return checker.check(new ByteArrayInputStream(actual.getBytes(StandardCharsets.UTF_8)));
+    }
+}
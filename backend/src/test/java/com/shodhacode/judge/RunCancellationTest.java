@@ -0,0 +1,67 @@
+package com.shodhacode.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunCancellationTest {
+
+    private final RunCancellation cancellation = new RunCancellation();
+    private final AtomicInteger stops = new AtomicInteger();
+    private final Runnable stop = stops::incrementAndGet;
+
+    @Test
+    void cancelRunsTheRegisteredAction() {
+        cancellation.onCancel(stop);
+
+        cancellation.cancel();
+
+        assertThat(cancellation.isCancelled()).isTrue();
+        assertThat(stops).hasValue(1);
+    }
+
+    @Test
+    void cancellingTwiceStopsOnce() {
+        cancellation.onCancel(stop);
+
+        cancellation.cancel();
+        cancellation.cancel();
+
+        assertThat(stops).hasValue(1);
+    }
+
+    @Test
+    void registeringAfterCancelStopsRightAway() {
+        cancellation.cancel();
+
+        cancellation.onCancel(stop);
+
+        assertThat(stops).hasValue(1);
+    }
+
+    @Test
+    void clearedActionIsNotRunOnCancel() {
+        cancellation.onCancel(stop);
+        cancellation.clear(stop);
+
+        cancellation.cancel();
+
+        assertThat(cancellation.isCancelled()).isTrue();
+        assertThat(stops).hasValue(0);
+    }
+
+    @Test
+    void clearLeavesANewerActionInPlace() {
+        AtomicInteger laterStops = new AtomicInteger();
+        cancellation.onCancel(stop);
+        cancellation.onCancel(laterStops::incrementAndGet);
+
+        cancellation.clear(stop);
+        cancellation.cancel();
+
+        assertThat(stops).hasValue(0);
+        assertThat(laterStops).hasValue(1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.shodhacode.judge;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.model.Problem;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunLimitsTest {
+
+    private final JudgeProperties judgeProperties = new JudgeProperties();
+
+    @Test
+    void usesTheProblemsOwnLimits() {
+        Problem problem = new Problem();
+        problem.setTimeLimitMillis(1500L);
+        problem.setMemoryLimitMb(64);
+        judgeProperties.setWallTimeFactor(3);
+
+        RunLimits limits = RunLimits.forProblem(problem, judgeProperties);
+
+        assertThat(limits.getTimeLimitMillis()).isEqualTo(1500);
+        assertThat(limits.getWallTimeLimitMillis()).isEqualTo(4500);
+        assertThat(limits.getMemoryLimitKb()).isEqualTo(64 * 1024);
+    }
+
+    @Test
+    void fallsBackToTheDefaultLimits() {
+        judgeProperties.setDefaultTimeLimit(Duration.ofSeconds(2));
+        judgeProperties.setDefaultMemoryLimit(DataSize.ofMegabytes(256));
+
+        RunLimits limits = RunLimits.forProblem(new Problem(), judgeProperties);
+
+        assertThat(limits.getTimeLimitMillis()).isEqualTo(2000);
+        assertThat(limits.getMemoryLimitKb()).isEqualTo(256 * 1024);
+    }
+
+    @Test
+    void wallTimeLimitIsNeverBelowTheTimeLimit() {
+        Problem problem = new Problem();
+        problem.setTimeLimitMillis(1000L);
+        judgeProperties.setWallTimeFactor(0);
+
+        assertThat(RunLimits.forProblem(problem, judgeProperties).getWallTimeLimitMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void timeIsJudgedOnCpuTimeWhenMeasured() {
+        RunLimits limits = new RunLimits(1000, 3000, 65536);
+
+        assertThat(limits.exceedsTime(new ResourceUsage(1000, 2500, 0))).isFalse();
+        assertThat(limits.exceedsTime(new ResourceUsage(1001, 1001, 0))).isTrue();
+    }
+
+    @Test
+    void timeFallsBackToWallTimeWithoutCpuTime() {
+        RunLimits limits = new RunLimits(1000, 3000, 65536);
+
+        assertThat(limits.exceedsTime(ResourceUsage.wallOnly(1000))).isFalse();
+        assertThat(limits.exceedsTime(ResourceUsage.wallOnly(1001))).isTrue();
+    }
+
+    @Test
+    void memoryIsOnlyExceededWhenMeasured() {
+        RunLimits limits = new RunLimits(1000, 3000, 65536);
+
+        assertThat(limits.exceedsMemory(new ResourceUsage(10, 10, 65536))).isFalse();
+        assertThat(limits.exceedsMemory(new ResourceUsage(10, 10, 65537))).isTrue();
+        assertThat(limits.exceedsMemory(ResourceUsage.wallOnly(10))).isFalse();
+    }
+}
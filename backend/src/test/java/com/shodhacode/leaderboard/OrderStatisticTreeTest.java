@@ -0,0 +1,128 @@
+package com.shodhacode.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatisticTreeTest {
+
+    private final OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+
+    @Test
+    void emptyTree() {
+        assertThat(tree.size()).isZero();
+        assertThat(tree.rankOf(5)).isZero();
+        assertThat(tree.range(0, 10)).isEmpty();
+        assertThat(tree.remove(5)).isFalse();
+    }
+
+    @Test
+    void keepsElementsInOrder() {
+        List.of(5, 1, 9, 3, 7).forEach(tree::add);
+
+        assertThat(tree.size()).isEqualTo(5);
+        assertThat(tree.range(0, 10)).containsExactly(1, 3, 5, 7, 9);
+    }
+
+    @Test
+    void rankCountsTheElementsBefore() {
+        List.of(10, 20, 30, 40).forEach(tree::add);
+
+        assertThat(tree.rankOf(10)).isZero();
+        assertThat(tree.rankOf(30)).isEqualTo(2);
+        assertThat(tree.rankOf(40)).isEqualTo(3);
+        // Elements not in the tree get the position they would be inserted at
+        assertThat(tree.rankOf(5)).isZero();
+        assertThat(tree.rankOf(25)).isEqualTo(2);
+        assertThat(tree.rankOf(50)).isEqualTo(4);
+    }
+
+    @Test
+    void rangeReturnsAPage() {
+        for (int i = 0; i < 10; i++) {
+            tree.add(i);
+        }
+
+        assertThat(tree.range(0, 3)).containsExactly(0, 1, 2);
+        assertThat(tree.range(4, 3)).containsExactly(4, 5, 6);
+        assertThat(tree.range(8, 5)).containsExactly(8, 9);
+        assertThat(tree.range(10, 5)).isEmpty();
+        assertThat(tree.range(3, 0)).isEmpty();
+    }
+
+    @Test
+    void removeTakesOutOnlyThatElement() {
+        List.of(1, 2, 3, 4, 5).forEach(tree::add);
+
+        assertThat(tree.remove(3)).isTrue();
+        assertThat(tree.remove(3)).isFalse();
+        assertThat(tree.remove(6)).isFalse();
+
+        assertThat(tree.size()).isEqualTo(4);
+        assertThat(tree.range(0, 10)).containsExactly(1, 2, 4, 5);
+        assertThat(tree.rankOf(4)).isEqualTo(2);
+    }
+
+    @Test
+    void removingTheOnlyElementEmptiesTheTree() {
+        tree.add(1);
+
+        assertThat(tree.remove(1)).isTrue();
+        assertThat(tree.size()).isZero();
+        assertThat(tree.range(0, 1)).isEmpty();
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        List.of(1, 2, 3).forEach(tree::add);
+
+        tree.clear();
+
+        assertThat(tree.size()).isZero();
+        assertThat(tree.range(0, 10)).isEmpty();
+    }
+
+    @Test
+    void usesTheComparatorForOrderAndIdentity() {
+        OrderStatisticTree<String> byLength = new OrderStatisticTree<>(Comparator.comparingInt(String::length));
+        List.of("ccc", "a", "bb").forEach(byLength::add);
+
+        assertThat(byLength.range(0, 3)).containsExactly("a", "bb", "ccc");
+        // Equal under the comparator counts as the same element
+        assertThat(byLength.remove("xx")).isTrue();
+        assertThat(byLength.range(0, 3)).containsExactly("a", "ccc");
+    }
+
+    @Test
+    void agreesWithASortedSetUnderRandomChanges() {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(tree.remove(value)).isEqualTo(expected.remove(value));
+            } else if (expected.add(value)) {
+                tree.add(value);
+            }
+
+            if (step % 500 == 0) {
+                assertThat(tree.size()).isEqualTo(expected.size());
+                assertThat(tree.rankOf(value)).isEqualTo(expected.headSet(value).size());
+                int offset = random.nextInt(expected.size() + 1);
+                assertThat(tree.range(offset, 25)).isEqualTo(page(expected, offset, 25));
+            }
+        }
+        assertThat(tree.range(0, expected.size())).containsExactlyElementsOf(expected);
+    }
+
+    private static List<Integer> page(TreeSet<Integer> set, int offset, int limit) {
+        return new ArrayList<>(set).subList(offset, Math.min(set.size(), offset + limit));
+    }
+}
@@ -0,0 +1,241 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.JudgeProperties;
+import com.shodhacode.service.SubmissionScheduler.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class SubmissionSchedulerTest {
+
+    private final JudgeProperties judgeProperties = new JudgeProperties();
+    private final JudgeProperties.SchedulerProperties settings = judgeProperties.getScheduler();
+    private SubmissionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        settings.setCapacity(100);
+        settings.setUserBurst(100);
+        settings.setUserRefillInterval(Duration.ofHours(1));
+        settings.setOverloadRetryAfter(Duration.ofSeconds(10));
+        scheduler = new SubmissionScheduler(judgeProperties);
+    }
+
+    @Test
+    void emptySchedulerHasNothingToHandOut() throws InterruptedException {
+        assertThat(scheduler.size()).isZero();
+        assertThat(scheduler.poll()).isNull();
+        assertThat(scheduler.poll(Duration.ofMillis(10))).isNull();
+    }
+
+    @Test
+    void liveContestSubmissionsGoBeforePractice() {
+        scheduler.enqueue(1, "alice", Priority.PRACTICE);
+        scheduler.enqueue(2, "bob", Priority.PRACTICE);
+        scheduler.enqueue(3, "carol", Priority.LIVE_CONTEST);
+
+        assertThat(drain()).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void usersTakeTurnsWithinAPriority() {
+        scheduler.enqueue(1, "alice", Priority.PRACTICE);
+        scheduler.enqueue(2, "alice", Priority.PRACTICE);
+        scheduler.enqueue(3, "alice", Priority.PRACTICE);
+        scheduler.enqueue(4, "bob", Priority.PRACTICE);
+        scheduler.enqueue(5, "carol", Priority.PRACTICE);
+        scheduler.enqueue(6, "bob", Priority.PRACTICE);
+
+        assertThat(drain()).containsExactly(1L, 4L, 5L, 2L, 6L, 3L);
+    }
+
+    @Test
+    void userWhoseQueueRanEmptyJoinsTheBackOfTheTurns() {
+        scheduler.enqueue(1, "alice", Priority.PRACTICE);
+        scheduler.enqueue(2, "bob", Priority.PRACTICE);
+        scheduler.enqueue(3, "bob", Priority.PRACTICE);
+        assertThat(scheduler.poll()).isEqualTo(1L);
+
+        scheduler.enqueue(4, "alice", Priority.PRACTICE);
+
+        assertThat(drain()).containsExactly(2L, 4L, 3L);
+    }
+
+    @Test
+    void sizeCountsEveryWaitingSubmission() {
+        scheduler.enqueue(1, "alice", Priority.LIVE_CONTEST);
+        scheduler.enqueue(2, "alice", Priority.PRACTICE);
+        assertThat(scheduler.size()).isEqualTo(2);
+
+        scheduler.poll();
+        assertThat(scheduler.size()).isEqualTo(1);
+    }
+
+    @Test
+    void takeWaitsForASubmission() throws Exception {
+        CompletableFuture<Long> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(taken).isNotDone();
+
+        scheduler.enqueue(7, "alice", Priority.PRACTICE);
+
+        assertThat(taken.get(5, TimeUnit.SECONDS)).isEqualTo(7L);
+    }
+
+    @Test
+    void rejectsSubmissionsOnceAtCapacity() {
+        settings.setCapacity(2);
+        scheduler.admit("alice");
+        scheduler.enqueue(1, "alice", Priority.PRACTICE);
+        scheduler.admit("bob");
+        scheduler.enqueue(2, "bob", Priority.PRACTICE);
+
+        SubmissionRejectedException rejected = catchThrowableOfType(() -> scheduler.admit("carol"),
+                SubmissionRejectedException.class);
+        assertThat(rejected.getRetryAfter()).isEqualTo(Duration.ofSeconds(10));
+
+        scheduler.poll();
+        scheduler.admit("carol");
+    }
+
+    @Test
+    void userIsLimitedToTheirBurst() {
+        settings.setUserBurst(3);
+        for (int i = 0; i < 3; i++) {
+            scheduler.admit("alice");
+        }
+
+        SubmissionRejectedException rejected = catchThrowableOfType(() -> scheduler.admit("alice"),
+                SubmissionRejectedException.class);
+        assertThat(rejected.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofHours(1));
+        // Other users have buckets of their own
+        scheduler.admit("bob");
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        settings.setUserBurst(1);
+        settings.setUserRefillInterval(Duration.ofMillis(20));
+        scheduler.admit("alice");
+        assertThatThrownBy(() -> scheduler.admit("alice")).isInstanceOf(SubmissionRejectedException.class);
+
+        Thread.sleep(60);
+
+        scheduler.admit("alice");
+    }
+
+    @Test
+    void rejudgesComeAfterEverythingElse() {
+        scheduler.enqueue(1, "alice", Priority.REJUDGE);
+        scheduler.enqueue(2, "bob", Priority.PRACTICE);
+        scheduler.enqueue(3, "carol", Priority.LIVE_CONTEST);
+
+        assertThat(drain()).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void onlyTheConfiguredNumberOfRejudgesIsHandedOut() {
+        settings.setRejudgeConcurrency(2);
+        for (long id = 1; id <= 4; id++) {
+            scheduler.enqueue(id, "alice", Priority.REJUDGE);
+        }
+
+        assertThat(drain()).containsExactly(1L, 2L);
+        assertThat(scheduler.size()).isEqualTo(2);
+        assertThat(scheduler.rejudgesWaiting()).isEqualTo(2);
+    }
+
+    @Test
+    void finishingARejudgeFreesItsSlot() throws Exception {
+        scheduler.enqueue(1, "alice", Priority.REJUDGE);
+        scheduler.enqueue(2, "alice", Priority.REJUDGE);
+        assertThat(scheduler.poll()).isEqualTo(1L);
+        assertThat(scheduler.poll()).isNull();
+
+        CompletableFuture<Long> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(taken).isNotDone();
+
+        scheduler.finished(1);
+
+        assertThat(taken.get(5, TimeUnit.SECONDS)).isEqualTo(2L);
+    }
+
+    @Test
+    void finishingAnOrdinarySubmissionLeavesTheRejudgeSlotTaken() {
+        scheduler.enqueue(1, "alice", Priority.REJUDGE);
+        scheduler.enqueue(2, "alice", Priority.REJUDGE);
+        scheduler.enqueue(3, "bob", Priority.PRACTICE);
+        assertThat(drain()).containsExactly(3L, 1L);
+
+        scheduler.finished(3);
+
+        assertThat(scheduler.poll()).isNull();
+    }
+
+    @Test
+    void liveSubmissionsAreNotHeldUpByAFullRejudgeLane() {
+        scheduler.enqueue(1, "alice", Priority.REJUDGE);
+        scheduler.enqueue(2, "alice", Priority.REJUDGE);
+        assertThat(scheduler.poll()).isEqualTo(1L);
+
+        scheduler.enqueue(3, "bob", Priority.LIVE_CONTEST);
+
+        assertThat(scheduler.poll()).isEqualTo(3L);
+    }
+
+    @Test
+    void waitingRejudgesDoNotCountAgainstTheCapacity() {
+        settings.setCapacity(1);
+        for (long id = 1; id <= 5; id++) {
+            scheduler.enqueue(id, "admin", Priority.REJUDGE);
+        }
+
+        scheduler.admit("alice");
+        scheduler.enqueue(6, "alice", Priority.PRACTICE);
+        assertThatThrownBy(() -> scheduler.admit("bob")).isInstanceOf(SubmissionRejectedException.class);
+    }
+
+    @Test
+    void rejudgeRequeuedWhileInFlightKeepsItsLane() {
+        scheduler.enqueue(1, "alice", Priority.REJUDGE);
+        assertThat(scheduler.poll()).isEqualTo(1L);
+
+        // As when its claim expires and it is queued again with its contest's priority
+        scheduler.enqueue(1, "alice", Priority.LIVE_CONTEST);
+        scheduler.enqueue(2, "bob", Priority.PRACTICE);
+
+        assertThat(scheduler.rejudgesWaiting()).isEqualTo(1);
+        assertThat(drain()).containsExactly(2L, 1L);
+    }
+
+    private List<Long> drain() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = scheduler.poll()) != null) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -1,15 +1,31 @@
 import { useState, useEffect } from 'react';
-import { getLeaderboard } from '../lib/api';
+import { getLeaderboardChanges } from '../lib/api';
+
+// Applies a leaderboard delta: changed rows replace whatever sat at their rank
+const applyChanges = (rows, changes) => {
+  const next = changes.full ? [] : rows.slice(0, changes.size);
+  changes.entries.forEach((entry) => {
+    next[entry.rank - 1] = entry;
+  });
+  return next;
+};
 
 const Leaderboard = ({ contestId }) => {
   const [leaderboard, setLeaderboard] = useState([]);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
+    let rows = [];
+    let version = 0;
+
     const fetchLeaderboard = async () => {
       try {
-        const data = await getLeaderboard(contestId);
-        setLeaderboard(data);
+        const changes = await getLeaderboardChanges(contestId, version);
+        if (changes) {
+          rows = applyChanges(rows, changes);
+          version = changes.version;
+          setLeaderboard(rows);
+        }
       } catch (error) {
         console.error('Failed to fetch leaderboard:', error);
       } finally {
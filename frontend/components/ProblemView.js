@@ -21,6 +21,16 @@ const ProblemView = ({ problem }) => {
         <div className="flex items-center justify-between">
           <h2 className="text-2xl font-bold text-gray-800">{problem.title}</h2>
           <div className="flex items-center space-x-2">
+            {problem.timeLimitMillis && (
+              <span className="px-3 py-1 bg-gray-100 text-gray-700 text-sm font-medium rounded-full">
+                {problem.timeLimitMillis / 1000}s
+              </span>
+            )}
+            {problem.memoryLimitMb && (
+              <span className="px-3 py-1 bg-gray-100 text-gray-700 text-sm font-medium rounded-full">
+                {problem.memoryLimitMb} MB
+              </span>
+            )}
             <span className="px-3 py-1 bg-blue-100 text-blue-800 text-sm font-medium rounded-full">
               Problem Statement
             </span>
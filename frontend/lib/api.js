@@ -24,7 +24,20 @@ export const getSubmission = async (submissionId) => {
   return response.data;
 };
 
+export const submissionEventsUrl = (submissionId) =>
+  `${API_BASE_URL}/api/submissions/${submissionId}/events`;
+
 export const getLeaderboard = async (contestId) => {
   const response = await api.get(`/api/contests/${contestId}/leaderboard`);
   return response.data;
 };
+
+// Rows changed after `version`; resolves to null when nothing changed (304)
+export const getLeaderboardChanges = async (contestId, version) => {
+  const response = await api.get(`/api/contests/${contestId}/leaderboard`, {
+    params: { since: version },
+    headers: version ? { 'If-None-Match': `"${version}"` } : {},
+    validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
+  });
+  return response.status === 304 ? null : response.data;
+};
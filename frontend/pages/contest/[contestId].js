@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react';
 import { useRouter } from 'next/router';
-import { getContest, postSubmission, getSubmission } from '../../lib/api';
+import { getContest, postSubmission, getSubmission, submissionEventsUrl } from '../../lib/api';
 import CodeEditor from '../../components/CodeEditor';
 import ProblemView from '../../components/ProblemView';
 import Leaderboard from '../../components/Leaderboard';
@@ -58,34 +58,68 @@ export default function Contest() {
       setCurrentSubmission(submissionId);
       setSubmissionStatus('Processing...');
       
-      // Poll for submission status
-      pollSubmissionStatus(submissionId);
+      // Follow the submission's status as the server pushes it
+      watchSubmissionStatus(submissionId);
       
     } catch (error) {
       console.error('Failed to submit:', error);
-      setSubmissionStatus('Submission failed');
+      if (error.response?.status === 429) {
+        // The judge is busy or this user is submitting too fast
+        const retryAfter = error.response.data?.retryAfterSeconds;
+        setSubmissionStatus(retryAfter
+          ? `Too many submissions, try again in ${retryAfter}s`
+          : 'Too many submissions, try again shortly');
+      } else {
+        setSubmissionStatus('Submission failed');
+      }
     } finally {
       setIsSubmitting(false);
     }
   };
 
+  // Returns true once the submission has reached a verdict
+  const showSubmissionStatus = (submission) => {
+    if (submission.status === 'PENDING' || submission.status === 'RUNNING') {
+      setSubmissionStatus('Processing...');
+      return false;
+    }
+
+    setSubmissionStatus(submission.status);
+    if (submission.status === 'ACCEPTED') {
+      alert('✅ Accepted! All test cases passed.');
+    } else {
+      alert(`❌ ${submission.status}: ${submission.result || 'Unknown error'}`);
+    }
+    return true;
+  };
+
+  const watchSubmissionStatus = (submissionId) => {
+    if (typeof EventSource === 'undefined') {
+      pollSubmissionStatus(submissionId);
+      return;
+    }
+
+    const events = new EventSource(submissionEventsUrl(submissionId));
+    events.addEventListener('status', (event) => {
+      if (showSubmissionStatus(JSON.parse(event.data))) {
+        events.close();
+      }
+    });
+    events.onerror = () => {
+      // The browser reconnects by itself after a dropped stream; fall back to polling if it gave up
+      if (events.readyState === EventSource.CLOSED) {
+        pollSubmissionStatus(submissionId);
+      }
+    };
+  };
+
   const pollSubmissionStatus = async (submissionId) => {
     const pollInterval = setInterval(async () => {
       try {
         const submission = await getSubmission(submissionId);
         
-        if (submission.status === 'PENDING' || submission.status === 'RUNNING') {
-          setSubmissionStatus('Processing...');
-        } else {
-          setSubmissionStatus(submission.status);
+        if (showSubmissionStatus(submission)) {
           clearInterval(pollInterval);
-          
-          // Show result
-          if (submission.status === 'ACCEPTED') {
-            alert('✅ Accepted! All test cases passed.');
-          } else {
-            alert(`❌ ${submission.status}: ${submission.result || 'Unknown error'}`);
-          }
         }
       } catch (error) {
         console.error('Failed to poll submission status:', error);